@@ -0,0 +1,84 @@
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.FluentWait;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * WebDriverWait whose timeout is learned per condition.
+ *
+ * The timeout passed to the constructor is the ceiling. Each until() call looks
+ * up how long the same condition has taken before (see {@link WaitLatencies})
+ * and waits only as long as a high percentile of those latencies times a safety
+ * factor, so a clearly broken page fails fast while a slow but healthy one still
+ * gets up to the ceiling. Latencies are learned separately under each
+ * throttled {@link EmulationProfile}, so a timeout learned at full speed never
+ * applies to a throttled run. Polling interval and ignored exceptions set on
+ * this wait are kept; only the timeout changes per call. Every wait is also
+ * recorded as a trace span.
+ */
+public class AdaptiveWait extends WebDriverWait {
+    private Duration ceiling;
+
+    /**
+     * The ceiling is for an unthrottled browser; it is stretched by the active
+     * {@link EmulationProfile}'s wait multiplier
+     */
+    public AdaptiveWait(WebDriver driver, Duration ceiling) {
+        this(driver, ceiling, EmulationProfile.active());
+    }
+
+    private AdaptiveWait(WebDriver driver, Duration ceiling, EmulationProfile profile) {
+        super(driver, profile.scale(ceiling));
+        this.ceiling = profile.scale(ceiling);
+    }
+
+    /**
+     * Sets the ceiling that learned timeouts are clamped to, as given
+     */
+    @Override
+    public FluentWait<WebDriver> withTimeout(Duration timeout) {
+        this.ceiling = timeout;
+        return super.withTimeout(timeout);
+    }
+
+    @Override
+    public <V> V until(Function<? super WebDriver, V> isTrue) {
+        // Lambdas have no useful toString(), ExpectedConditions describe themselves
+        String name = isTrue.getClass().isSynthetic() ? null : WaitLatencies.normalize(String.valueOf(isTrue));
+        return until(name, isTrue);
+    }
+
+    /**
+     * Waits for a condition under an explicit name, for lambdas and other
+     * conditions that cannot describe themselves. A null name always waits
+     * for the full ceiling and is not learned.
+     */
+    public <V> V until(String name, Function<? super WebDriver, V> isTrue) {
+        EmulationProfile profile = EmulationProfile.active();
+        String key = name == null || !profile.isThrottled() ? name : name + " @" + profile.name;
+        Duration timeout = key == null ? ceiling : WaitLatencies.timeoutFor(key, ceiling);
+        long start = System.nanoTime();
+        TraceRecorder.Span span = TraceRecorder.begin("wait", "wait")
+                .arg("condition", name == null ? "custom condition" : name)
+                .arg("timeoutMs", String.valueOf(timeout.toMillis()));
+        try {
+            super.withTimeout(timeout);
+            V result = super.until(isTrue);
+            if (key != null) {
+                WaitLatencies.record(key, Duration.ofNanos(System.nanoTime() - start));
+            }
+            return result;
+        } catch (TimeoutException e) {
+            if (key != null) {
+                WaitLatencies.recordTimeout(key);
+            }
+            throw e;
+        } finally {
+            super.withTimeout(ceiling);
+            span.close();
+        }
+    }
+}
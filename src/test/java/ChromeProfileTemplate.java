@@ -0,0 +1,249 @@
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.apache.commons.io.FileUtils;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Pre-baked Chrome user-data directory that every session starts from.
+ *
+ * The template is prepared once per set of Chrome prefs: Chrome is started on
+ * it with the prefs applied and the component updater disabled, first-run work
+ * is done, and the application's login page is loaded so the HTTP cache already
+ * holds its static assets. Each session then gets its own copy of the template.
+ * The Chrome version and the application build the template was prepared with
+ * are stored in its ready marker, and a template whose stamp no longer matches
+ * is prepared again, so sessions never start from another Chrome's profile or
+ * a cache of assets the application no longer serves. Threads needing the same
+ * template while it is prepared wait for it; other templates are unaffected.
+ * The browser that prepares a template holds a {@link ConcurrencyGovernor}
+ * slot like any session, so callers get the template before taking the slot
+ * of their own session.
+ *
+ * Copies use reflinks (copy-on-write) where the filesystem supports them and a
+ * plain recursive copy otherwise. Hard links are deliberately not used: Chrome
+ * rewrites cache and SQLite files in place, which would corrupt the template.
+ */
+public final class ChromeProfileTemplate {
+    private static final String TEMPLATE_ROOT = System.getProperty("chrome.profileTemplate.dir",
+        "target" + File.separator + "chrome-profile-template");
+    private static final String SESSION_ROOT = "target" + File.separator + "chrome-profiles";
+    private static final String WARMUP_URL = "https://opensource-demo.orangehrmlive.com/";
+    private static final String READY_MARKER = ".template-ready";
+    private static final Set<String> LOCK_FILES = Set.of("SingletonLock", "SingletonSocket", "SingletonCookie");
+    private static final Pattern VERSION = Pattern.compile("[0-9]+(\\.[0-9]+)+");
+    private static final Map<String, CompletableFuture<Path>> TEMPLATES = new ConcurrentHashMap<>();
+    private static Boolean reflinkSupported;
+    private static String chromeVersion;
+    private static boolean chromeVersionResolved;
+
+    private ChromeProfileTemplate() {
+    }
+
+    /**
+     * Whether sessions should start from a template (-Dchrome.profileTemplate=false to disable)
+     */
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty("chrome.profileTemplate", "true"));
+    }
+
+    /**
+     * Returns a fresh per-session copy of a template from {@link #templateFor(Map)}
+     */
+    public static Path cloneFor(Path template) throws IOException {
+        Path session = Paths.get(SESSION_ROOT, "session-" + UUID.randomUUID());
+        Files.createDirectories(session.getParent());
+        copyTree(template, session);
+        return session;
+    }
+
+    /**
+     * Deletes a per-session copy once its browser has quit
+     */
+    public static void discard(Path session) {
+        if (session != null) {
+            FileUtils.deleteQuietly(session.toFile());
+        }
+    }
+
+    /**
+     * Returns the template matching the given prefs, preparing it first if this
+     * is the first session that needs it
+     */
+    public static Path templateFor(Map<String, Object> prefs) {
+        String key = Integer.toHexString(new TreeMap<>(prefs).toString().hashCode());
+        CompletableFuture<Path> preparing = new CompletableFuture<>();
+        CompletableFuture<Path> existing = TEMPLATES.putIfAbsent(key, preparing);
+        if (existing != null) {
+            return existing.join();
+        }
+        // Prepared outside the map, so sessions needing other templates are not held up
+        try {
+            Path template = Paths.get(TEMPLATE_ROOT, "prefs-" + key).toAbsolutePath();
+            Properties stamp = stamp(prefs);
+            if (!stamp.equals(readMarker(template))) {
+                prepare(template, prefs, stamp);
+            }
+            preparing.complete(template);
+            return template;
+        } catch (RuntimeException e) {
+            // The next session tries again
+            TEMPLATES.remove(key, preparing);
+            preparing.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * What a template depends on besides its prefs, as stored in its ready marker
+     */
+    private static Properties stamp(Map<String, Object> prefs) {
+        Properties stamp = new Properties();
+        stamp.setProperty("chromeVersion", Objects.toString(chromeVersion(), "unknown"));
+        stamp.setProperty("appBuild", Objects.toString(ResultCache.appBuild(), "unknown"));
+        stamp.setProperty("prefs", new TreeMap<>(prefs).toString());
+        return stamp;
+    }
+
+    private static Properties readMarker(Path template) {
+        Path marker = template.resolve(READY_MARKER);
+        if (!Files.exists(marker)) {
+            return null;
+        }
+        Properties stamp = new Properties();
+        try (Reader in = Files.newBufferedReader(marker, StandardCharsets.UTF_8)) {
+            stamp.load(in);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+        return stamp;
+    }
+
+    /**
+     * Version of the Chrome that WebDriverManager finds, from its --version
+     * output; null where it cannot be run that way
+     */
+    private static synchronized String chromeVersion() {
+        if (!chromeVersionResolved) {
+            chromeVersionResolved = true;
+            chromeVersion = WebDriverManager.chromedriver().getBrowserPath().map(browser -> {
+                try {
+                    Process process = new ProcessBuilder(browser.toString(), "--version")
+                        .redirectErrorStream(true)
+                        .start();
+                    String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                    Matcher version = VERSION.matcher(output);
+                    return process.waitFor() == 0 && version.find() ? version.group() : null;
+                } catch (IOException e) {
+                    return null;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }).orElse(null);
+        }
+        return chromeVersion;
+    }
+
+    private static void prepare(Path template, Map<String, Object> prefs, Properties stamp) {
+        long start = System.nanoTime();
+        FileUtils.deleteQuietly(template.toFile());
+
+        ChromeOptions options = new ChromeOptions();
+        options.addArguments("--user-data-dir=" + template);
+        options.addArguments("--disable-component-update");
+        options.addArguments("--no-first-run");
+        options.addArguments("--no-default-browser-check");
+        if (!prefs.isEmpty()) {
+            options.setExperimentalOption("prefs", prefs);
+        }
+
+        ConcurrencyGovernor.acquire(DriverFactory::quitIdleBrowser);
+        try {
+            WebDriver driver = new ChromeDriver(options);
+            try {
+                // Load the login page so its scripts, styles and images land in the HTTP cache
+                driver.get(WARMUP_URL);
+                new WebDriverWait(driver, Duration.ofSeconds(30))
+                    .until(ExpectedConditions.presenceOfElementLocated(By.name("username")));
+            } finally {
+                driver.quit();
+            }
+        } finally {
+            ConcurrencyGovernor.release();
+        }
+
+        try {
+            for (String lock : LOCK_FILES) {
+                Files.deleteIfExists(template.resolve(lock));
+            }
+            try (Writer out = Files.newBufferedWriter(template.resolve(READY_MARKER), StandardCharsets.UTF_8)) {
+                stamp.store(out, "Chrome profile template");
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to finalize Chrome profile template " + template, e);
+        }
+        System.out.println("✓ Chrome profile template prepared in "
+            + (System.nanoTime() - start) / 1_000_000 + " ms (Chrome " + stamp.getProperty("chromeVersion")
+            + ", app build " + stamp.getProperty("appBuild") + "): " + template);
+    }
+
+    private static void copyTree(Path source, Path target) throws IOException {
+        if (isReflinkSupported()) {
+            // Nobody reads cp's output, so it must not be left to fill a pipe
+            Process copy = new ProcessBuilder("cp", "-R", "--reflink=auto", source + File.separator + ".", target.toString())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            try {
+                if (copy.waitFor() == 0) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while cloning Chrome profile", e);
+            }
+            FileUtils.deleteQuietly(target.toFile());
+        }
+        FileUtils.copyDirectory(source.toFile(), target.toFile(),
+            file -> !LOCK_FILES.contains(file.getName()));
+    }
+
+    /**
+     * GNU cp understands --reflink=auto, which clones extents on btrfs/XFS and
+     * silently falls back to a normal copy elsewhere
+     */
+    private static synchronized boolean isReflinkSupported() {
+        if (reflinkSupported == null) {
+            try {
+                Process probe = new ProcessBuilder("cp", "--reflink=auto", "--version")
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+                reflinkSupported = probe.waitFor() == 0;
+            } catch (IOException e) {
+                reflinkSupported = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                reflinkSupported = false;
+            }
+        }
+        return reflinkSupported;
+    }
+}
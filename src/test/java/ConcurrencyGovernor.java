@@ -0,0 +1,256 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Decides how many browser sessions may run at once from the cores, the free
+ * memory and the measured footprint of one browser.
+ *
+ * Every new session passes through {@link #acquire(BooleanSupplier)}. A session is admitted
+ * while fewer sessions are running than the current limit and the load average
+ * is below the threshold; otherwise its thread waits (backpressure) and is
+ * re-evaluated twice a second and whenever a session ends, so concurrency
+ * drops under pressure and rises again once it eases. A session is always
+ * admitted when none is running, and browsers kept open without a test
+ * (parked sessions, shared browsers with no open tab) are quit when their
+ * slots are needed, so a run never stalls on its own idle browsers. A session
+ * that still gets no slot within the maximum wait fails its test.
+ *
+ * The limit is min(cores * sessionsPerCore, running + (available memory -
+ * reserve) / footprint, maxSessions). The footprint starts at the value
+ * learned in the previous run and follows the browser RSS samples taken by
+ * {@link ProcessMonitor}. Limit changes, delays and a summary are printed.
+ *
+ *   -Dgovernor.enabled=false           no limit, no thread count override
+ *   -Dgovernor.sessionsPerCore=1.0     CPU share of one browser session
+ *   -Dgovernor.maxSessions=...         hard cap (default: unlimited)
+ *   -Dgovernor.memoryReserveMb=1024    memory kept free for the OS and the JVM
+ *   -Dgovernor.maxLoadPerCore=1.5      1-minute load per core above which new sessions wait
+ *   -Dgovernor.maxWaitSeconds=600      wait for a slot after which the test fails
+ *   -Dgovernor.sessionMb=400           footprint estimate before anything was measured
+ *   -Dgovernor.file=.cache/browser-footprint.properties
+ */
+public final class ConcurrencyGovernor {
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("governor.enabled", "true"));
+    private static final double SESSIONS_PER_CORE = Double.parseDouble(
+        System.getProperty("governor.sessionsPerCore", "1.0"));
+    private static final int MAX_SESSIONS = Integer.getInteger("governor.maxSessions", Integer.MAX_VALUE);
+    private static final long RESERVE_KB = Long.getLong("governor.memoryReserveMb", 1024L) * 1024;
+    private static final double MAX_LOAD_PER_CORE = Double.parseDouble(
+        System.getProperty("governor.maxLoadPerCore", "1.5"));
+    private static final Path FILE = Paths.get(System.getProperty("governor.file",
+        ".cache" + File.separator + "browser-footprint.properties"));
+    private static final Path MEMINFO = Paths.get("/proc/meminfo");
+    private static final Path LOADAVG = Paths.get("/proc/loadavg");
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+    private static final long RECHECK_MILLIS = 500;
+    private static final long MAX_WAIT_MILLIS = Long.getLong("governor.maxWaitSeconds", 600L) * 1000;
+    // Weight of the newest RSS sample in the footprint's moving average
+    private static final double FOOTPRINT_WEIGHT = 0.2;
+
+    private static int running;
+    private static int lastLimit = -1;
+    private static int peak;
+    private static long footprintKb = Long.getLong("governor.sessionMb", 400L) * 1024;
+    private static long admitted;
+    private static long delayed;
+    private static long delayMillis;
+
+    static {
+        load();
+        Runtime.getRuntime().addShutdownHook(new Thread(ConcurrencyGovernor::save, "governor-save"));
+    }
+
+    private ConcurrencyGovernor() {
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Blocks until a new browser session may start. While the session count
+     * is what holds it back, quitIdleBrowser is asked to quit one browser
+     * that no test is using, which frees its slot. Throws
+     * if no slot frees up within -Dgovernor.maxWaitSeconds.
+     */
+    public static void acquire(BooleanSupplier quitIdleBrowser) {
+        if (!ENABLED) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        synchronized (ConcurrencyGovernor.class) {
+            String reason = admissionBlocker();
+            if (reason == null) {
+                admit();
+                return;
+            }
+            delayed++;
+            System.out.println("⏸ Governor: delaying new session on " + Thread.currentThread().getName()
+                + " - " + reason);
+        }
+        while (true) {
+            // Outside the lock: quitting a browser calls release()
+            boolean countBound;
+            synchronized (ConcurrencyGovernor.class) {
+                countBound = running >= limit();
+            }
+            if (countBound && quitIdleBrowser.getAsBoolean()) {
+                continue;
+            }
+            synchronized (ConcurrencyGovernor.class) {
+                long waited = System.currentTimeMillis() - start;
+                String reason = admissionBlocker();
+                if (reason == null) {
+                    delayMillis += waited;
+                    admit();
+                    System.out.println("▶ Governor: admitted session after " + waited + " ms (" + running
+                        + " running)");
+                    return;
+                }
+                if (waited >= MAX_WAIT_MILLIS) {
+                    delayMillis += waited;
+                    throw new IllegalStateException("No browser slot within " + waited / 1000 + " s (" + reason
+                        + ") - raise -Dgovernor.maxSessions or -Dgovernor.maxWaitSeconds");
+                }
+                try {
+                    ConcurrencyGovernor.class.wait(RECHECK_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    delayMillis += waited;
+                    throw new IllegalStateException("Interrupted while waiting for a browser slot", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Called when a session admitted by {@link #acquire(BooleanSupplier)} has quit
+     */
+    public static synchronized void release() {
+        if (!ENABLED) {
+            return;
+        }
+        running = Math.max(0, running - 1);
+        ConcurrencyGovernor.class.notifyAll();
+    }
+
+    /**
+     * Feeds one browser's measured RSS into the footprint estimate
+     */
+    public static synchronized void recordFootprint(long rssKb) {
+        if (rssKb > 0) {
+            footprintKb = Math.round(FOOTPRINT_WEIGHT * rssKb + (1 - FOOTPRINT_WEIGHT) * footprintKb);
+        }
+    }
+
+    /**
+     * Sessions that may run at once right now; used to size the TestNG thread pool at suite start
+     */
+    public static synchronized int limit() {
+        int byCpu = (int) Math.max(1, Math.floor(CORES * SESSIONS_PER_CORE));
+        long availableKb = availableMemoryKb();
+        int byMemory = availableKb < 0 ? Integer.MAX_VALUE
+            : running + (int) Math.max(0, (availableKb - RESERVE_KB) / Math.max(1, footprintKb));
+        int limit = Math.max(1, Math.min(MAX_SESSIONS, Math.min(byCpu, byMemory)));
+        if (limit != lastLimit) {
+            System.out.println("⚖ Governor: session limit " + (lastLimit < 0 ? "" : lastLimit + " → ") + limit
+                + " (" + CORES + " cores → " + byCpu + ", "
+                + (availableKb < 0 ? "memory unknown" : availableKb / 1024 + " MB available → " + byMemory)
+                + ", browser footprint " + footprintKb / 1024 + " MB)");
+            lastLimit = limit;
+        }
+        return limit;
+    }
+
+    public static synchronized String statistics() {
+        return String.format("Governor: %d sessions admitted, peak %d concurrent, %d delayed for %.1f s in total, "
+                + "browser footprint %d MB, %d cores",
+            admitted, peak, delayed, delayMillis / 1000.0, footprintKb / 1024, CORES);
+    }
+
+    private static void admit() {
+        running++;
+        admitted++;
+        peak = Math.max(peak, running);
+    }
+
+    /**
+     * Why a new session cannot start now, or null if it can
+     */
+    private static String admissionBlocker() {
+        if (running == 0) {
+            return null;
+        }
+        int limit = limit();
+        if (running >= limit) {
+            return running + " sessions running, limit " + limit;
+        }
+        double load = loadAverage();
+        if (load > CORES * MAX_LOAD_PER_CORE) {
+            return String.format("load %.1f over %.1f", load, CORES * MAX_LOAD_PER_CORE);
+        }
+        return null;
+    }
+
+    private static long availableMemoryKb() {
+        for (String line : readLines(MEMINFO)) {
+            if (line.startsWith("MemAvailable:")) {
+                return Long.parseLong(line.replaceAll("[^0-9]", ""));
+            }
+        }
+        return -1;
+    }
+
+    private static double loadAverage() {
+        List<String> lines = readLines(LOADAVG);
+        if (!lines.isEmpty()) {
+            return Double.parseDouble(lines.get(0).split(" ")[0]);
+        }
+        // Not Linux: the JVM's view, which is negative where unavailable
+        return Math.max(0, ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage());
+    }
+
+    private static List<String> readLines(Path file) {
+        try {
+            return Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+
+    private static void load() {
+        if (!Files.exists(FILE)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader(FILE, StandardCharsets.UTF_8)) {
+            properties.load(in);
+            footprintKb = Long.parseLong(properties.getProperty("footprintKb", String.valueOf(footprintKb)));
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Failed to load browser footprint: " + e.getMessage());
+        }
+    }
+
+    private static synchronized void save() {
+        Properties properties = new Properties();
+        properties.setProperty("footprintKb", String.valueOf(footprintKb));
+        try {
+            Files.createDirectories(FILE.toAbsolutePath().getParent());
+            try (Writer out = Files.newBufferedWriter(FILE, StandardCharsets.UTF_8)) {
+                properties.store(out, "Moving average of one browser session's RSS");
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to save browser footprint: " + e.getMessage());
+        }
+    }
+}
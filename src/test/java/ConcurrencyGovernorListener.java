@@ -0,0 +1,43 @@
+import org.testng.IAlterSuiteListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.xml.XmlSuite;
+
+import java.util.List;
+
+/**
+ * Sizes the thread pool of parallel suites from {@link ConcurrencyGovernor}
+ * instead of the static thread-count, and prints the governor's statistics
+ * when the suite finishes.
+ *
+ * The limit counts browsers; in tab mode each browser hosts
+ * -Dbrowser.tabsPerBrowser tests, so the pool is that many times larger.
+ * The pool is only an upper bound; the governor still delays new browser
+ * sessions at runtime when memory or load gets tight.
+ */
+public class ConcurrencyGovernorListener implements IAlterSuiteListener, ISuiteListener {
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        if (!ConcurrencyGovernor.isEnabled()) {
+            return;
+        }
+        int threads = ConcurrencyGovernor.limit() * DriverFactory.tabsPerBrowser();
+        for (XmlSuite suite : suites) {
+            if (suite.getParallel() == null || suite.getParallel() == XmlSuite.ParallelMode.NONE) {
+                continue;
+            }
+            System.out.println("⚖ Governor: " + suite.getName() + " thread-count " + suite.getThreadCount()
+                + " → " + threads);
+            suite.setThreadCount(threads);
+            suite.setDataProviderThreadCount(threads);
+        }
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (ConcurrencyGovernor.isEnabled()) {
+            System.out.println(ConcurrencyGovernor.statistics());
+        }
+    }
+}
@@ -0,0 +1,198 @@
+import java.util.*;
+
+/**
+ * Generates a covering array over named parameter domains.
+ *
+ * Every combination of values for any {@code strength} parameters (every pair
+ * for strength 2, every triple for strength 3) appears in at least one
+ * generated row, which is usually an order of magnitude fewer rows than the
+ * full cartesian product. Rows are built greedily in the AETG style: each new
+ * row starts from an uncovered tuple and the remaining parameters are filled
+ * with the values that cover the most still-uncovered tuples. Generation is
+ * seeded, so the same domains always produce the same rows.
+ */
+public final class CoveringArray {
+    private static final int CANDIDATES_PER_ROW = 30;
+
+    private final int strength;
+    private final List<String> names = new ArrayList<>();
+    private final List<List<?>> domains = new ArrayList<>();
+    private long seed = 1L;
+
+    public CoveringArray(int strength) {
+        if (strength < 1) {
+            throw new IllegalArgumentException("Strength must be at least 1, was " + strength);
+        }
+        this.strength = strength;
+    }
+
+    /**
+     * Adds a parameter and the values it can take
+     */
+    public CoveringArray parameter(String name, List<?> values) {
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("Parameter '" + name + "' has no values");
+        }
+        names.add(name);
+        domains.add(new ArrayList<>(values));
+        return this;
+    }
+
+    public CoveringArray seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Number of rows the full cartesian product would have
+     */
+    public long exhaustiveSize() {
+        long size = 1;
+        for (List<?> domain : domains) {
+            size *= domain.size();
+        }
+        return size;
+    }
+
+    /**
+     * Builds the covering array. Each row maps parameter name to chosen value,
+     * in the order the parameters were declared.
+     */
+    public List<Map<String, Object>> generate() {
+        int t = Math.min(strength, names.size());
+        List<int[]> combinations = new ArrayList<>();
+        collectCombinations(new int[t], 0, 0, combinations);
+
+        Set<String> uncovered = new LinkedHashSet<>();
+        for (int[] combination : combinations) {
+            collectTuples(combination, new int[t], 0, uncovered);
+        }
+
+        Random random = new Random(seed);
+        List<int[]> rows = new ArrayList<>();
+        while (!uncovered.isEmpty()) {
+            int[] best = null;
+            int bestScore = -1;
+            for (int c = 0; c < CANDIDATES_PER_ROW; c++) {
+                int[] candidate = buildCandidate(uncovered, combinations, random);
+                int score = countCovered(candidate, combinations, uncovered);
+                if (score > bestScore) {
+                    best = candidate;
+                    bestScore = score;
+                }
+            }
+            rows.add(best);
+            for (int[] combination : combinations) {
+                uncovered.remove(tupleKey(combination, best));
+            }
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (int[] row : rows) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int p = 0; p < names.size(); p++) {
+                values.put(names.get(p), domains.get(p).get(row[p]));
+            }
+            result.add(values);
+        }
+        return result;
+    }
+
+    private int[] buildCandidate(Set<String> uncovered, List<int[]> combinations, Random random) {
+        int[] row = new int[names.size()];
+        Arrays.fill(row, -1);
+
+        // Seed the row with one uncovered tuple so every row makes progress
+        String seedTuple = uncovered.iterator().next();
+        for (String part : seedTuple.split("\\|")) {
+            String[] pv = part.split("=");
+            row[Integer.parseInt(pv[0])] = Integer.parseInt(pv[1]);
+        }
+
+        List<Integer> order = new ArrayList<>();
+        for (int p = 0; p < row.length; p++) {
+            if (row[p] < 0) {
+                order.add(p);
+            }
+        }
+        Collections.shuffle(order, random);
+
+        for (int p : order) {
+            int bestValue = random.nextInt(domains.get(p).size());
+            int bestGain = -1;
+            for (int v = 0; v < domains.get(p).size(); v++) {
+                row[p] = v;
+                int gain = countCoveredInvolving(p, row, combinations, uncovered);
+                if (gain > bestGain) {
+                    bestGain = gain;
+                    bestValue = v;
+                }
+            }
+            row[p] = bestValue;
+        }
+        return row;
+    }
+
+    private int countCoveredInvolving(int parameter, int[] row, List<int[]> combinations, Set<String> uncovered) {
+        int count = 0;
+        for (int[] combination : combinations) {
+            boolean involved = false;
+            boolean assigned = true;
+            for (int p : combination) {
+                involved |= p == parameter;
+                assigned &= row[p] >= 0;
+            }
+            if (involved && assigned && uncovered.contains(tupleKey(combination, row))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int countCovered(int[] row, List<int[]> combinations, Set<String> uncovered) {
+        int count = 0;
+        for (int[] combination : combinations) {
+            if (uncovered.contains(tupleKey(combination, row))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void collectCombinations(int[] current, int depth, int start, List<int[]> out) {
+        if (depth == current.length) {
+            out.add(current.clone());
+            return;
+        }
+        for (int p = start; p < names.size(); p++) {
+            current[depth] = p;
+            collectCombinations(current, depth + 1, p + 1, out);
+        }
+    }
+
+    private void collectTuples(int[] combination, int[] values, int depth, Set<String> out) {
+        if (depth == combination.length) {
+            int[] row = new int[names.size()];
+            for (int i = 0; i < combination.length; i++) {
+                row[combination[i]] = values[i];
+            }
+            out.add(tupleKey(combination, row));
+            return;
+        }
+        for (int v = 0; v < domains.get(combination[depth]).size(); v++) {
+            values[depth] = v;
+            collectTuples(combination, values, depth + 1, out);
+        }
+    }
+
+    private static String tupleKey(int[] combination, int[] row) {
+        StringBuilder key = new StringBuilder();
+        for (int p : combination) {
+            if (key.length() > 0) {
+                key.append('|');
+            }
+            key.append(p).append('=').append(row[p]);
+        }
+        return key.toString();
+    }
+}
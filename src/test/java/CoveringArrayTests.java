@@ -0,0 +1,104 @@
+import org.testng.Assert;
+import org.testng.annotations.*;
+
+import java.util.*;
+
+/**
+ * Tests for CoveringArray: every t-tuple of values must appear in a generated
+ * row. Runs without a browser.
+ */
+public class CoveringArrayTests {
+
+    @DataProvider(name = "strengths")
+    public Object[][] strengths() {
+        return new Object[][] {{2}, {3}};
+    }
+
+    // The domains of the generated login matrix, plus a parameter with a single value as in its injection-free rows
+    private static final Map<String, List<String>> LOGIN_DOMAINS = new LinkedHashMap<>();
+
+    static {
+        LOGIN_DOMAINS.put("username", List.of("valid", "unknown", "empty"));
+        LOGIN_DOMAINS.put("password", List.of("valid", "wrong", "empty"));
+        LOGIN_DOMAINS.put("usernameCasing", List.of("as-is", "lower", "upper"));
+        LOGIN_DOMAINS.put("passwordCasing", List.of("as-is", "upper"));
+        LOGIN_DOMAINS.put("usernameWhitespace", List.of("none", "leading", "trailing"));
+        LOGIN_DOMAINS.put("passwordWhitespace", List.of("none", "leading", "trailing"));
+        LOGIN_DOMAINS.put("usernameInjection", List.of("none"));
+    }
+
+    private static CoveringArray loginMatrix(int strength) {
+        CoveringArray matrix = new CoveringArray(strength);
+        LOGIN_DOMAINS.forEach(matrix::parameter);
+        return matrix;
+    }
+
+    @Test(priority = 1, groups = {"Unit"}, dataProvider = "strengths",
+          description = "Verify every t-tuple of parameter values appears in a generated row")
+    public void testEveryTupleIsCovered(int strength) {
+        List<Map<String, Object>> rows = loginMatrix(strength).generate();
+
+        List<String> names = new ArrayList<>(LOGIN_DOMAINS.keySet());
+        int tuples = 0;
+        for (List<String> combination : combinations(names, strength)) {
+            for (Map<String, Object> tuple : tuples(combination)) {
+                tuples++;
+                Assert.assertTrue(rows.stream().anyMatch(row -> row.entrySet().containsAll(tuple.entrySet())),
+                    "Tuple " + tuple + " is not covered by any of the " + rows.size() + " rows");
+            }
+        }
+
+        long exhaustive = loginMatrix(strength).exhaustiveSize();
+        Assert.assertTrue(rows.size() < exhaustive, "A covering array should be smaller than the cartesian product");
+        System.out.println("✓ Strength " + strength + ": " + tuples + " tuples covered by " + rows.size()
+            + " of " + exhaustive + " rows");
+    }
+
+    @Test(priority = 2, groups = {"Unit"}, description = "Verify generation is repeatable and rows use declared values")
+    public void testGenerationIsRepeatable() {
+        List<Map<String, Object>> first = loginMatrix(2).generate();
+        List<Map<String, Object>> second = loginMatrix(2).generate();
+        Assert.assertEquals(first, second, "The same domains should always produce the same rows");
+
+        for (Map<String, Object> row : first) {
+            Assert.assertEquals(new ArrayList<>(row.keySet()), new ArrayList<>(LOGIN_DOMAINS.keySet()),
+                "Rows should keep the declared parameter order");
+            row.forEach((name, value) -> Assert.assertTrue(LOGIN_DOMAINS.get(name).contains(value),
+                "Unexpected value " + value + " for " + name));
+        }
+
+        System.out.println("✓ Covering array generation is repeatable");
+    }
+
+    private static List<List<String>> combinations(List<String> names, int size) {
+        List<List<String>> result = new ArrayList<>();
+        if (size == 0) {
+            result.add(new ArrayList<>());
+            return result;
+        }
+        for (int i = 0; i <= names.size() - size; i++) {
+            for (List<String> rest : combinations(names.subList(i + 1, names.size()), size - 1)) {
+                rest.add(0, names.get(i));
+                result.add(rest);
+            }
+        }
+        return result;
+    }
+
+    private static List<Map<String, Object>> tuples(List<String> combination) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        result.add(new LinkedHashMap<>());
+        for (String name : combination) {
+            List<Map<String, Object>> extended = new ArrayList<>();
+            for (Map<String, Object> tuple : result) {
+                for (String value : LOGIN_DOMAINS.get(name)) {
+                    Map<String, Object> next = new LinkedHashMap<>(tuple);
+                    next.put(name, value);
+                    extended.add(next);
+                }
+            }
+            result = extended;
+        }
+        return result;
+    }
+}
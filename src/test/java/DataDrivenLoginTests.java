@@ -2,22 +2,29 @@ import io.github.bonigarcia.wdm.WebDriverManager;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 import org.testng.Assert;
+import org.testng.ITestResult;
 import org.testng.annotations.*;
 
+import java.lang.reflect.Method;
 import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@RequiresState(SessionState.LOGIN_PAGE)
 public class DataDrivenLoginTests {
-    private WebDriver driver;
-    private WebDriverWait wait;
-    private static final String BASE_URL = "https://opensource-demo.orangehrmlive.com/";
+    // Per thread, so test methods and DataProvider rows can run in parallel on one instance
+    private final ThreadLocal<WebDriver> drivers = new ThreadLocal<>();
+    private final ThreadLocal<AdaptiveWait> waits = new ThreadLocal<>();
+    private static final String DATA_DIR = "test-resources/data/";
 
     @BeforeMethod
-    public void setup() {
+    public void setup(Method method) {
         // Setup ChromeDriver using WebDriverManager
         WebDriverManager.chromedriver().setup();
         
@@ -27,68 +34,145 @@ public class DataDrivenLoginTests {
         options.addArguments("--disable-notifications");
         options.addArguments("--disable-popup-blocking");
         
-        // Initialize WebDriver
-        driver = new ChromeDriver(options);
-        wait = new WebDriverWait(driver, Duration.ofSeconds(10));
-        
-        // Navigate to OrangeHRM
-        driver.get(BASE_URL);
+        // Initialize WebDriver (a tab of a shared browser in tab mode), already on the login page
+        WebDriver driver = DriverFactory.newDriver(options, method);
+        drivers.set(driver);
+        waits.set(new AdaptiveWait(driver, Duration.ofSeconds(10)));
     }
 
     @AfterMethod
-    public void teardown() {
-        // Close browser
-        if (driver != null) {
-            driver.quit();
-        }
+    public void teardown(ITestResult result) {
+        // Close browser, or park it for the next test that starts in the same state
+        DriverFactory.release(drivers.get(), result);
+        drivers.remove();
+        waits.remove();
     }
 
     /**
      * Data Provider for valid login credentials
      */
     @DataProvider(name = "validLoginData")
-    public Object[][] getValidLoginData() {
-        return new Object[][] {
-            {"Admin", "admin123"},
-        };
+    public Iterator<Object[]> getValidLoginData() {
+        return DataFile.open(DATA_DIR + "valid-login.csv")
+            .columns("username", "password")
+            .withRowId()
+            .iterator();
     }
 
     /**
-     * Data Provider for invalid login credentials
+     * Expected outcome for a generated login row; first matching rule wins
+     */
+    private static final OutcomeRules LOGIN_RULES = new OutcomeRules("Invalid credentials")
+        // OrangeHRM's required validator trims, so a whitespace-only field counts as empty
+        .when(row -> isBlank(row, "username") || isBlank(row, "password"), "Required")
+        .when(row -> !row.get("usernameInjection").equals("none") || !row.get("passwordInjection").equals("none"),
+            "Invalid credentials")
+        // Passwords are case sensitive
+        .when(row -> !row.get("passwordCasing").equals("as-is"), "Invalid credentials")
+        .when(row -> row.get("username").equals("valid") && row.get("password").equals("valid")
+                && row.get("usernameWhitespace").equals("none") && row.get("passwordWhitespace").equals("none")
+                && row.get("usernameCasing").equals("as-is"), "success")
+        // Case folding of the username and trimming of either field are system dependent
+        .when(row -> row.get("username").equals("valid") && row.get("password").equals("valid"), "either");
+
+    /**
+     * Data Provider for a generated covering array of login inputs. Casing,
+     * whitespace and injection are separate factors for each field.
+     * Injection payloads are rejected whatever else the row holds, so they get
+     * a matrix of their own on valid credentials rather than masking the
+     * casing and whitespace combinations they would share rows with.
+     * Strength defaults to pairwise; use -Dcombinatorial.strength=3 for 3-wise.
      */
-    @DataProvider(name = "invalidLoginData")
-    public Object[][] getInvalidLoginData() {
-        return new Object[][] {
-            {"InvalidUser", "InvalidPass", "Invalid credentials"},
-            {"Admin", "wrongPassword", "Invalid credentials"},
-            {"", "", "Required"},
-            {"Admin", "", "Required"},
-            {"", "admin123", "Required"},
-            {"Admin", "Admin123", "Invalid credentials"},  // wrong case password
-        };
+    @DataProvider(name = "combinatorialLoginData")
+    public Iterator<Object[]> getCombinatorialLoginData() {
+        int strength = Integer.getInteger("combinatorial.strength", 2);
+        CoveringArray matrix = new CoveringArray(strength)
+            .parameter("username", List.of("valid", "unknown", "empty"))
+            .parameter("password", List.of("valid", "wrong", "empty"))
+            .parameter("usernameCasing", List.of("as-is", "lower", "upper"))
+            .parameter("passwordCasing", List.of("as-is", "upper"))
+            .parameter("usernameWhitespace", List.of("none", "leading", "trailing"))
+            .parameter("passwordWhitespace", List.of("none", "leading", "trailing"))
+            .parameter("usernameInjection", List.of("none"))
+            .parameter("passwordInjection", List.of("none"));
+        CoveringArray injections = new CoveringArray(strength)
+            .parameter("username", List.of("valid"))
+            .parameter("password", List.of("valid"))
+            .parameter("usernameCasing", List.of("as-is"))
+            .parameter("passwordCasing", List.of("as-is"))
+            .parameter("usernameWhitespace", List.of("none"))
+            .parameter("passwordWhitespace", List.of("none"))
+            .parameter("usernameInjection", List.of("none", "sql", "special"))
+            .parameter("passwordInjection", List.of("none", "sql", "special"));
+
+        // The covering arrays are small; the test rows are built one at a time as TestNG pulls them
+        List<Map<String, Object>> mainRows = matrix.generate();
+        List<Map<String, Object>> injectionRows = injections.generate().stream()
+            // Valid credentials without a payload are already a row of the main matrix
+            .filter(row -> !row.get("usernameInjection").equals("none") || !row.get("passwordInjection").equals("none"))
+            .collect(Collectors.toList());
+        System.out.println("Generated " + (mainRows.size() + injectionRows.size()) + " login rows (exhaustive: "
+            + (matrix.exhaustiveSize() * injections.exhaustiveSize()) + ")");
+
+        return Stream.concat(mainRows.stream(), injectionRows.stream())
+            .map(row -> new Object[] {buildValue(row, "username"), buildValue(row, "password"),
+                LOGIN_RULES.expectedFor(row),
+                String.join("/", row.values().stream().map(String::valueOf).toArray(String[]::new))})
+            .iterator();
     }
 
     /**
-     * Data Provider for various login scenarios
+     * Helper method to turn the generated levels of one field into a concrete
+     * value: base value, then casing, injection payload and whitespace
      */
-    @DataProvider(name = "allLoginData")
-    public Object[][] getAllLoginData() {
-        return new Object[][] {
-            // username, password, expectedResult, description
-            {"Admin", "admin123", "success", "Valid credentials"},
-            {"InvalidUser", "InvalidPass", "failure", "Both invalid"},
-            {"Admin", "wrongPass", "failure", "Invalid password"},
-            {"wrongUser", "admin123", "failure", "Invalid username"},
-            {"", "", "failure", "Empty credentials"},
-        };
+    private static String buildValue(Map<String, Object> row, String field) {
+        String value = baseValue(field, (String) row.get(field));
+        String casing = (String) row.get(field + "Casing");
+        if (casing.equals("lower")) {
+            value = value.toLowerCase();
+        } else if (casing.equals("upper")) {
+            value = value.toUpperCase();
+        }
+        String injection = (String) row.get(field + "Injection");
+        if (injection.equals("sql")) {
+            value = value + "'OR'1'='1";
+        } else if (injection.equals("special")) {
+            value = value + "#$@";
+        }
+        String whitespace = (String) row.get(field + "Whitespace");
+        if (whitespace.equals("leading")) {
+            value = " " + value;
+        } else if (whitespace.equals("trailing")) {
+            value = value + " ";
+        }
+        return value;
+    }
+
+    private static String baseValue(String field, String level) {
+        switch (level) {
+            case "valid": return field.equals("username") ? "Admin" : "admin123";
+            case "unknown": return "wrongUser";
+            case "wrong": return "wrongPass";
+            default: return "";
+        }
     }
 
+    /**
+     * Whether a field ends up empty or whitespace-only
+     */
+    private static boolean isBlank(Map<String, Object> row, String field) {
+        return row.get(field).equals("empty") && row.get(field + "Injection").equals("none");
+    }
+
+    @Isolated("logs in; the session cookie would be shared with every tab")
     @Test(priority = 1, groups = {"Smoke", "DataDriven"}, 
           dataProvider = "validLoginData", 
           description = "Data-driven test for valid login")
-    public void testValidLoginWithDataProvider(String username, String password) {
+    public void testValidLoginWithDataProvider(String username, String password, String rowId) {
+        WebDriver driver = drivers.get();
+        AdaptiveWait wait = waits.get();
         try {
-            System.out.println("Testing login with username: " + username);
+            System.out.println("[" + rowId + "] Testing login with username: " + username);
             
             // Wait for login page to load
             WebElement usernameField = wait.until(
@@ -120,79 +204,17 @@ public class DataDrivenLoginTests {
         }
     }
 
-    @Test(priority = 2, groups = {"Regression", "DataDriven"}, 
-          dataProvider = "invalidLoginData", 
-          description = "Data-driven test for invalid login attempts")
-    public void testInvalidLoginWithDataProvider(String username, String password, String expectedErrorText) {
+    @Isolated("includes rows that log in")
+    @Test(priority = 2, groups = {"Regression", "DataDriven"},
+          dataProvider = "combinatorialLoginData",
+          description = "Pairwise/combinatorial login validation with rule-based expectations")
+    public void testLoginWithCombinatorialData(String username, String password, String expected, String rowId) {
+        WebDriver driver = drivers.get();
+        AdaptiveWait wait = waits.get();
         try {
-            System.out.println("Testing invalid login with username: '" + username + "', password: '" + password + "'");
-            
-            // Wait for login page to load
-            WebElement usernameField = wait.until(
-                ExpectedConditions.presenceOfElementLocated(By.name("username"))
-            );
-
-            // Enter credentials
-            if (!username.isEmpty()) {
-                usernameField.sendKeys(username);
-            }
-            
-            WebElement passwordField = driver.findElement(By.name("password"));
-            if (!password.isEmpty()) {
-                passwordField.sendKeys(password);
-            }
-
-            // Click login button
-            WebElement loginButton = driver.findElement(By.cssSelector("button[type='submit']"));
-            loginButton.click();
-
-            // Wait a moment for response
-            Thread.sleep(1000);
-
-            // Check for error message or validation
-            boolean errorFound = false;
-            String actualError = "";
-
-            try {
-                // Check for invalid credentials error
-                WebElement errorMessage = wait.until(
-                    ExpectedConditions.presenceOfElementLocated(By.cssSelector("p.oxd-alert-content-text"))
-                );
-                actualError = errorMessage.getText();
-                errorFound = true;
-            } catch (Exception e1) {
-                // Check for required field validation
-                if (driver.findElements(By.cssSelector("span.oxd-input-field-error-message")).size() > 0) {
-                    actualError = "Required field validation";
-                    errorFound = true;
-                }
-            }
-
-            // Verify error is shown
-            Assert.assertTrue(errorFound, 
-                "Error should be displayed for invalid credentials: " + username + "/" + password);
-            
-            // Verify we're still on login page (not dashboard)
-            String currentUrl = driver.getCurrentUrl();
-            Assert.assertFalse(currentUrl.contains("dashboard"), 
-                "Should not reach dashboard with invalid credentials");
-            
-            System.out.println("✓ Login correctly failed for user: '" + username + "' - Error: " + actualError);
-
-        } catch (Exception e) {
-            Assert.fail("Invalid login test failed for user " + username + ": " + e.getMessage());
-        }
-    }
+            System.out.println("[" + rowId + "] Username: '" + username + "', Password: '" + password
+                + "', Expected: " + expected);
 
-    @Test(priority = 3, groups = {"Regression", "DataDriven"}, 
-          dataProvider = "allLoginData", 
-          description = "Comprehensive data-driven login validation")
-    public void testLoginWithVariousScenarios(String username, String password, 
-                                              String expectedResult, String description) {
-        try {
-            System.out.println("Testing scenario: " + description);
-            System.out.println("  Username: '" + username + "', Password: '" + password + "'");
-            
             // Wait for login page to load
             WebElement usernameField = wait.until(
                 ExpectedConditions.presenceOfElementLocated(By.name("username"))
@@ -202,164 +224,54 @@ public class DataDrivenLoginTests {
             if (!username.isEmpty()) {
                 usernameField.sendKeys(username);
             }
-            
-            WebElement passwordField = driver.findElement(By.name("password"));
             if (!password.isEmpty()) {
-                passwordField.sendKeys(password);
+                driver.findElement(By.name("password")).sendKeys(password);
             }
 
             // Click login button
-            WebElement loginButton = driver.findElement(By.cssSelector("button[type='submit']"));
-            loginButton.click();
-
-            // Wait for response
-            Thread.sleep(2000);
-
-            // Verify result based on expected outcome
-            String currentUrl = driver.getCurrentUrl();
-
-            if (expectedResult.equals("success")) {
-                // Should reach dashboard
-                Assert.assertTrue(currentUrl.contains("dashboard"), 
-                    description + " - Should reach dashboard");
-                System.out.println("  ✓ Result: Login successful as expected");
-                
-            } else if (expectedResult.equals("failure")) {
-                // Should stay on login page or show error
-                Assert.assertFalse(currentUrl.contains("dashboard"), 
-                    description + " - Should not reach dashboard");
-                
-                // Verify error message or validation is shown
-                boolean errorShown = driver.findElements(By.cssSelector("p.oxd-alert-content-text")).size() > 0 ||
-                                    driver.findElements(By.cssSelector("span.oxd-input-field-error-message")).size() > 0;
-                
-                Assert.assertTrue(errorShown, 
-                    description + " - Error message should be displayed");
-                System.out.println("  ✓ Result: Login failed as expected");
+            driver.findElement(By.cssSelector("button[type='submit']")).click();
+
+            // Wait for the outcome: the dashboard, a field validation message or the login alert
+            By fieldError = By.cssSelector("span.oxd-input-field-error-message");
+            By alert = By.cssSelector("p.oxd-alert-content-text");
+            wait.until("loginOutcome", d -> d.getCurrentUrl().contains("dashboard")
+                || !d.findElements(fieldError).isEmpty() || !d.findElements(alert).isEmpty());
+
+            boolean onDashboard = driver.getCurrentUrl().contains("dashboard");
+            switch (expected) {
+                case "success":
+                    Assert.assertTrue(onDashboard, rowId + " - Should reach dashboard");
+                    break;
+                case "Required":
+                    Assert.assertFalse(onDashboard, rowId + " - Should not reach dashboard");
+                    List<WebElement> errors = driver.findElements(fieldError);
+                    Assert.assertFalse(errors.isEmpty(), rowId + " - Required field validation should be displayed");
+                    for (WebElement error : errors) {
+                        Assert.assertEquals(error.getText().trim(), "Required",
+                            rowId + " - Field validation should read 'Required'");
+                    }
+                    break;
+                case "Invalid credentials":
+                    Assert.assertFalse(onDashboard, rowId + " - Should not reach dashboard");
+                    Assert.assertEquals(wait.until(ExpectedConditions.visibilityOfElementLocated(alert)).getText().trim(),
+                        "Invalid credentials", rowId + " - Invalid credentials error should be displayed");
+                    break;
+                default:
+                    // Either outcome is acceptable, but it must be one of the two and not a validation error
+                    Assert.assertTrue(driver.findElements(fieldError).isEmpty(),
+                        rowId + " - Valid credentials should pass field validation");
+                    if (!onDashboard) {
+                        Assert.assertEquals(wait.until(ExpectedConditions.visibilityOfElementLocated(alert)).getText()
+                            .trim(), "Invalid credentials", rowId + " - A rejected variation should show the login alert");
+                    }
+                    System.out.println("  ✓ System " + (onDashboard ? "accepted" : "rejected") + " the variation");
+                    break;
             }
 
-        } catch (Exception e) {
-            Assert.fail("Scenario '" + description + "' failed: " + e.getMessage());
-        }
-    }
-
-    @Test(priority = 4, groups = {"DataDriven"}, 
-          description = "Test login with username case variations")
-    public void testLoginWithCaseVariations() {
-        String[][] testData = {
-            {"admin", "admin123"},    // lowercase - might work depending on system
-            {"ADMIN", "admin123"},    // uppercase - might work depending on system  
-            {"Admin ", "admin123"},   // trailing space - might be trimmed by system
-        };
-
-        int successCount = 0;
-        int failureCount = 0;
-
-        for (String[] credentials : testData) {
-            String username = credentials[0];
-            String password = credentials[1];
-            
-            System.out.println("Testing with username variation: '" + username + "'");
-            
-            // Close and restart browser for clean state
-            if (driver != null) {
-                driver.quit();
-            }
-            
-            // Reinitialize driver
-            WebDriverManager.chromedriver().setup();
-            ChromeOptions options = new ChromeOptions();
-            options.addArguments("--start-maximized");
-            options.addArguments("--disable-notifications");
-            driver = new ChromeDriver(options);
-            wait = new WebDriverWait(driver, Duration.ofSeconds(10));
-            
-            // Navigate to login page
-            driver.get(BASE_URL);
-            
-            try {
-                // Wait for login page
-                WebElement usernameField = wait.until(
-                    ExpectedConditions.presenceOfElementLocated(By.name("username"))
-                );
+            System.out.println("  ✓ Result matched expectation: " + expected);
 
-                // Enter credentials
-                usernameField.sendKeys(username);
-                driver.findElement(By.name("password")).sendKeys(password);
-
-                // Click login
-                driver.findElement(By.cssSelector("button[type='submit']")).click();
-
-                // Wait for response
-                Thread.sleep(2500);
-
-                // Check result
-                String currentUrl = driver.getCurrentUrl();
-                if (currentUrl.contains("dashboard")) {
-                    System.out.println("✓ System accepted username: '" + username + "' (case-insensitive or trimming enabled)");
-                    successCount++;
-                } else {
-                    System.out.println("✓ System rejected username: '" + username + "' (case-sensitive)");
-                    failureCount++;
-                }
-                
-            } catch (Exception e) {
-                System.out.println("⚠ Test encountered error for '" + username + "': " + e.getMessage());
-                failureCount++;
-            }
-        }
-
-        System.out.println("✓ Case variation tests completed - Accepted: " + successCount + ", Rejected: " + failureCount);
-        // Test passes as long as we tested all variations
-        Assert.assertEquals(successCount + failureCount, testData.length, "All case variations should be tested");
-    }
-
-    @Test(priority = 5, groups = {"DataDriven"}, 
-          description = "Test login with special characters in credentials")
-    public void testLoginWithSpecialCharacters() {
-        String[][] testData = {
-            {"Admin@123", "pass@123"},
-            {"User#123", "test$pass"},
-            {"admin'OR'1'='1", "password"},
-        };
-
-        for (String[] credentials : testData) {
-            String username = credentials[0];
-            String password = credentials[1];
-            
-            try {
-                System.out.println("Testing with special characters - Username: " + username);
-                
-                // Navigate to login page
-                driver.get(BASE_URL);
-                
-                // Wait for login page
-                WebElement usernameField = wait.until(
-                    ExpectedConditions.presenceOfElementLocated(By.name("username"))
-                );
-
-                // Enter credentials
-                usernameField.sendKeys(username);
-                driver.findElement(By.name("password")).sendKeys(password);
-
-                // Click login
-                driver.findElement(By.cssSelector("button[type='submit']")).click();
-
-                // Wait for response
-                Thread.sleep(1500);
-
-                // Should not login with these credentials
-                String currentUrl = driver.getCurrentUrl();
-                Assert.assertFalse(currentUrl.contains("dashboard"), 
-                    "Should not login with special characters: " + username);
-                
-                System.out.println("✓ Special character test passed for: " + username);
-
-            } catch (Exception e) {
-                Assert.fail("Special character test failed for " + username + ": " + e.getMessage());
-            }
+        } catch (Exception e) {
+            Assert.fail("Combinatorial login row '" + rowId + "' failed: " + e.getMessage());
         }
-
-        System.out.println("✓ All special character login tests completed");
     }
 }
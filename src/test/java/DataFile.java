@@ -0,0 +1,300 @@
+import org.openqa.selenium.json.Json;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Lazily streamed test data backed by a CSV or JSON-lines file.
+ *
+ * Rows are parsed one at a time while TestNG pulls them from the iterator, so a
+ * DataProvider can feed a file with hundreds of thousands of rows without
+ * materializing an Object[][] up front.
+ *
+ * CSV files start with a header line; blank lines and lines starting with '#'
+ * are ignored. JSON-lines files hold one flat JSON object per line. In both
+ * formats an optional "tags" column (';'-separated in CSV, string or array in
+ * JSON) is used for filtering and an optional "id" column overrides the
+ * generated row ID.
+ *
+ * Sampling never empties a file: if no row of a file is sampled, the first
+ * row that passed the tag filter is kept, so a one-row file such as
+ * valid-login.csv still runs its test. Filtering and sampling can also be
+ * set from the command line:
+ *   -Ddata.tags=smoke,edge   keep rows carrying any of the tags
+ *   -Ddata.sample=0.1        keep roughly 10% of the rows
+ *   -Ddata.sampleSeed=42     choose a different (but still stable) sample
+ */
+public final class DataFile implements Iterable<Object[]> {
+    private static final Json JSON = new Json();
+
+    private final Path path;
+    private final boolean jsonLines;
+    private String[] columns = new String[0];
+    private Set<String> tags = parseList(System.getProperty("data.tags", ""));
+    private double sampleRate = Double.parseDouble(System.getProperty("data.sample", "1.0"));
+    private long sampleSeed = Long.getLong("data.sampleSeed", 0L);
+    private boolean appendRowId;
+
+    private DataFile(Path path) {
+        this.path = path;
+        this.jsonLines = path.getFileName().toString().endsWith(".jsonl");
+    }
+
+    /**
+     * Opens a .csv or .jsonl data file. Nothing is read until iteration starts.
+     */
+    public static DataFile open(String path) {
+        return new DataFile(Paths.get(path));
+    }
+
+    /**
+     * Columns to emit for each row, in the order the test method expects them
+     */
+    public DataFile columns(String... names) {
+        this.columns = names.clone();
+        return this;
+    }
+
+    /**
+     * Keep only rows tagged with at least one of the given tags
+     */
+    public DataFile withTags(String... names) {
+        this.tags = new HashSet<>(Arrays.asList(names));
+        return this;
+    }
+
+    /**
+     * Keep roughly the given fraction of rows. The decision is derived from the
+     * row ID, so the same rows are picked on every run and on every thread.
+     */
+    public DataFile sample(double rate, long seed) {
+        this.sampleRate = rate;
+        this.sampleSeed = seed;
+        return this;
+    }
+
+    /**
+     * Append the stable row ID as the last parameter of every row
+     */
+    public DataFile withRowId() {
+        this.appendRowId = true;
+        return this;
+    }
+
+    @Override
+    public Iterator<Object[]> iterator() {
+        return new RowIterator();
+    }
+
+    /**
+     * Reads one line at a time and yields only rows that pass the tag and
+     * sampling filters. Access is synchronized so a parallel DataProvider can
+     * share the iterator across threads.
+     */
+    private final class RowIterator implements Iterator<Object[]> {
+        private BufferedReader reader;
+        private String[] header;
+        private int lineNumber;
+        private Object[] nextRow;
+        // First row that only sampling left out, kept in case sampling leaves no row at all
+        private Object[] sampledOut;
+        private boolean yielded;
+        private boolean finished;
+
+        @Override
+        public synchronized boolean hasNext() {
+            if (nextRow == null && !finished) {
+                nextRow = advance();
+            }
+            return nextRow != null;
+        }
+
+        @Override
+        public synchronized Object[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more rows in " + path);
+            }
+            Object[] row = nextRow;
+            nextRow = null;
+            yielded = true;
+            return row;
+        }
+
+        private Object[] advance() {
+            try {
+                if (reader == null) {
+                    reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+                }
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isBlank() || line.startsWith("#")) {
+                        continue;
+                    }
+                    if (!jsonLines && header == null) {
+                        header = parseCsvLine(line).toArray(new String[0]);
+                        continue;
+                    }
+                    Map<String, Object> record = jsonLines ? parseJsonLine(line) : toRecord(parseCsvLine(line));
+                    String rowId = rowId(record, line);
+                    if (!matchesTags(record)) {
+                        continue;
+                    }
+                    if (isSampled(rowId)) {
+                        return toRow(record, rowId);
+                    }
+                    if (!yielded && sampledOut == null) {
+                        sampledOut = toRow(record, rowId);
+                    }
+                }
+                close();
+                Object[] fallback = yielded ? null : sampledOut;
+                sampledOut = null;
+                return fallback;
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException("Failed to read data file " + path + " at line " + lineNumber, e);
+            }
+        }
+
+        private Map<String, Object> toRecord(List<String> values) {
+            if (values.size() != header.length) {
+                throw new IllegalStateException(path + ":" + lineNumber + " has " + values.size()
+                    + " fields, header declares " + header.length);
+            }
+            Map<String, Object> record = new HashMap<>();
+            for (int i = 0; i < header.length; i++) {
+                record.put(header[i], values.get(i));
+            }
+            return record;
+        }
+
+        private Object[] toRow(Map<String, Object> record, String rowId) {
+            Object[] row = new Object[columns.length + (appendRowId ? 1 : 0)];
+            for (int i = 0; i < columns.length; i++) {
+                if (!record.containsKey(columns[i])) {
+                    throw new IllegalStateException(path + ":" + lineNumber + " is missing column '" + columns[i] + "'");
+                }
+                Object value = record.get(columns[i]);
+                row[i] = value == null ? "" : String.valueOf(value);
+            }
+            if (appendRowId) {
+                row[columns.length] = rowId;
+            }
+            return row;
+        }
+
+        private void close() {
+            finished = true;
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException ignored) {
+                    // Nothing left to read
+                }
+                reader = null;
+            }
+        }
+    }
+
+    private String rowId(Map<String, Object> record, String rawLine) {
+        Object explicit = record.get("id");
+        if (explicit != null && !String.valueOf(explicit).isEmpty()) {
+            return String.valueOf(explicit);
+        }
+        // Content hash rather than line number, so inserting rows does not renumber the rest
+        String fileName = path.getFileName().toString();
+        String stem = fileName.substring(0, fileName.lastIndexOf('.'));
+        return stem + "-" + shortHash(rawLine);
+    }
+
+    private boolean matchesTags(Map<String, Object> record) {
+        if (tags.isEmpty()) {
+            return true;
+        }
+        Object rowTags = record.get("tags");
+        Collection<?> values = rowTags instanceof Collection
+            ? (Collection<?>) rowTags
+            : parseList(rowTags == null ? "" : String.valueOf(rowTags).replace(';', ','));
+        for (Object tag : values) {
+            if (tags.contains(String.valueOf(tag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isSampled(String rowId) {
+        if (sampleRate >= 1.0) {
+            return true;
+        }
+        long bucket = Math.floorMod(rowId.hashCode() * 31L + sampleSeed * 0x9E3779B97F4A7C15L, 10_000L);
+        return bucket < sampleRate * 10_000;
+    }
+
+    private static Map<String, Object> parseJsonLine(String line) {
+        return JSON.toType(line, Json.MAP_TYPE);
+    }
+
+    /**
+     * Splits a single CSV record, honouring double quotes and "" escapes
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private static Set<String> parseList(String value) {
+        Set<String> result = new HashSet<>();
+        for (String part : value.split(",")) {
+            if (!part.isBlank()) {
+                result.add(part.trim());
+            }
+        }
+        return result;
+    }
+
+    private static String shortHash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 4; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+import org.testng.Assert;
+import org.testng.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Tests for DataFile parsing, tag filtering, sampling and row IDs against
+ * temporary data files. Runs without a browser.
+ */
+public class DataFileTests {
+    private Path dir;
+
+    @BeforeClass
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("data-file-tests");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void teardown() throws IOException {
+        if (dir != null) {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    private String write(String name, String... lines) throws IOException {
+        Path file = dir.resolve(name);
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file.toString();
+    }
+
+    private static List<Object[]> rows(DataFile data) {
+        List<Object[]> rows = new ArrayList<>();
+        data.forEach(rows::add);
+        return rows;
+    }
+
+    @Test(priority = 1, groups = {"Unit"}, description = "Verify CSV fields with quotes, escaped quotes and commas")
+    public void testParseCsvLine() {
+        Assert.assertEquals(DataFile.parseCsvLine("a,b,c"), List.of("a", "b", "c"));
+        Assert.assertEquals(DataFile.parseCsvLine("\"a,b\",c"), List.of("a,b", "c"), "Quoted commas stay in the field");
+        Assert.assertEquals(DataFile.parseCsvLine("\"say \"\"hi\"\"\",x"), List.of("say \"hi\"", "x"),
+            "Doubled quotes are an escaped quote");
+        Assert.assertEquals(DataFile.parseCsvLine("a,,"), List.of("a", "", ""), "Empty fields are kept");
+        Assert.assertEquals(DataFile.parseCsvLine(" a , b"), List.of(" a ", " b"), "Whitespace is not trimmed");
+
+        System.out.println("✓ CSV lines parsed");
+    }
+
+    @Test(priority = 2, groups = {"Unit"}, description = "Verify rows are kept when they carry any requested tag")
+    public void testMatchesTags() throws IOException {
+        String csv = write("tags.csv",
+            "username,tags",
+            "a,smoke",
+            "b,smoke;edge",
+            "c,",
+            "d,regression");
+        String jsonl = write("tags.jsonl",
+            "{\"username\": \"a\", \"tags\": [\"smoke\"]}",
+            "{\"username\": \"b\", \"tags\": \"edge\"}",
+            "{\"username\": \"c\"}");
+
+        Assert.assertEquals(usernames(DataFile.open(csv).columns("username").withTags("smoke")), List.of("a", "b"));
+        Assert.assertEquals(usernames(DataFile.open(csv).columns("username").withTags("edge", "regression")),
+            List.of("b", "d"), "Any of the tags should match");
+        Assert.assertEquals(usernames(DataFile.open(csv).columns("username").withTags()), List.of("a", "b", "c", "d"),
+            "Without tags every row should be kept");
+        Assert.assertEquals(usernames(DataFile.open(jsonl).columns("username").withTags("smoke", "edge")),
+            List.of("a", "b"), "JSON tags may be an array or a string");
+
+        System.out.println("✓ Tag filter applied");
+    }
+
+    @Test(priority = 3, groups = {"Unit"}, description = "Verify sampling picks the same rows on every run")
+    public void testSamplingIsStable() throws IOException {
+        List<String> lines = new ArrayList<>(List.of("username"));
+        for (int i = 0; i < 200; i++) {
+            lines.add("user" + i);
+        }
+        String csv = write("sample.csv", lines.toArray(new String[0]));
+
+        List<String> first = usernames(DataFile.open(csv).columns("username").withTags().sample(0.25, 7));
+        List<String> second = usernames(DataFile.open(csv).columns("username").withTags().sample(0.25, 7));
+        List<String> otherSeed = usernames(DataFile.open(csv).columns("username").withTags().sample(0.25, 8));
+
+        Assert.assertEquals(first, second, "The same seed should sample the same rows");
+        Assert.assertNotEquals(first, otherSeed, "A different seed should sample different rows");
+        Assert.assertTrue(first.size() > 20 && first.size() < 80, "About a quarter should be sampled: " + first.size());
+
+        System.out.println("✓ Sample of " + first.size() + " rows is stable");
+    }
+
+    @Test(priority = 4, groups = {"Unit"}, description = "Verify sampling never drops every row of a file")
+    public void testSamplingKeepsOneRow() throws IOException {
+        String csv = write("one-row.csv",
+            "id,username",
+            "only,Admin");
+
+        List<Object[]> rows = rows(DataFile.open(csv).columns("username").withRowId().withTags().sample(0.0, 0));
+
+        Assert.assertEquals(rows.size(), 1, "A file whose rows are all sampled out should keep its first row");
+        Assert.assertEquals(rows.get(0), new Object[] {"Admin", "only"});
+
+        System.out.println("✓ One-row file survives sampling");
+    }
+
+    @Test(priority = 5, groups = {"Unit"}, description = "Verify the id column overrides the generated row ID")
+    public void testIdOverride() throws IOException {
+        String csv = write("ids.csv",
+            "id,username",
+            "explicit-id,a",
+            ",b");
+
+        List<Object[]> rows = rows(DataFile.open(csv).columns("username").withRowId().withTags());
+        List<Object[]> again = rows(DataFile.open(csv).columns("username").withRowId().withTags());
+
+        Assert.assertEquals(rows.get(0)[1], "explicit-id", "The id column should be used as the row ID");
+        Assert.assertTrue(String.valueOf(rows.get(1)[1]).matches("ids-[0-9a-f]{8}"),
+            "Without an id the row ID should be a content hash. Actual: " + rows.get(1)[1]);
+        Assert.assertEquals(again.get(1)[1], rows.get(1)[1], "Generated row IDs should be stable");
+
+        System.out.println("✓ Row IDs from the id column or a content hash");
+    }
+
+    private static List<String> usernames(DataFile data) {
+        List<String> usernames = new ArrayList<>();
+        for (Object[] row : data) {
+            usernames.add((String) row[0]);
+        }
+        return usernames;
+    }
+}
@@ -0,0 +1,569 @@
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.logging.LogType;
+import org.openqa.selenium.logging.LoggingPreferences;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+import org.testng.ITestResult;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+
+/**
+ * Creates and quits the Chrome sessions used by the test classes.
+ *
+ * Sessions start from a copy of the pre-baked {@link ChromeProfileTemplate}
+ * when it is enabled, and the time from session start to the first completed
+ * driver.get() is printed so fresh and templated startup can be compared.
+ * Session startup, navigation and quit are also recorded as trace spans, and
+ * every session carries a {@link FlightRecorder} that can be dumped when the
+ * test running on the session's thread fails.
+ *
+ * With -Dbrowser.tabsPerBrowser above 1, tests that are not {@link Isolated}
+ * run in tabs of {@link SharedBrowser}s instead: each test goes to the least
+ * busy browser started with the same options that has a free tab, and a new
+ * browser is started only when all of them are full.
+ *
+ * Every new browser first waits for a slot from {@link ConcurrencyGovernor},
+ * which may have this factory quit a parked browser or a shared browser with
+ * no open tab to make room, and every session and tab runs under the active
+ * {@link EmulationProfile}.
+ *
+ * Tests that declare a {@link RequiresState} get that state established
+ * before they start. Released after a passing test, their browser is parked
+ * instead of quit (see {@link StateScheduler}) and handed to the next test
+ * started with the same options, preferably one needing the same state, which
+ * carries the state forward. Failed tests, sessions over the
+ * {@link ProcessMonitor} recycle threshold and sessions without a state are
+ * still quit.
+ */
+public final class DriverFactory {
+    private static final int TABS_PER_BROWSER = Integer.getInteger("browser.tabsPerBrowser", 1);
+    private static final Map<WebDriver, Session> SESSIONS = Collections.synchronizedMap(new IdentityHashMap<>());
+    private static final ThreadLocal<Session> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<WebDriver> CURRENT_TAB = new ThreadLocal<>();
+    private static final Map<SharedBrowser, String> SHARED_BROWSERS = new IdentityHashMap<>();
+    private static final Deque<WebDriver> PARKED = new ArrayDeque<>();
+
+    private DriverFactory() {
+    }
+
+    /**
+     * Holds what the factory needs to know about a live session
+     */
+    private static final class Session {
+        private final ChromeDriver chromeDriver;
+        private final String optionsKey;
+        private final Path profileDir;
+        private final long startNanos;
+        private final ProcessMonitor processMonitor;
+        private final FlightRecorder recorder = new FlightRecorder();
+        private volatile boolean navigated;
+        // State the session was last established in, null until a test required one
+        private volatile SessionState state;
+
+        private Session(ChromeDriver chromeDriver, String optionsKey, Path profileDir, long startNanos,
+                        ProcessMonitor processMonitor) {
+            this.chromeDriver = chromeDriver;
+            this.optionsKey = optionsKey;
+            this.profileDir = profileDir;
+            this.startNanos = startNanos;
+            this.processMonitor = processMonitor;
+        }
+    }
+
+    /**
+     * Tests one browser hosts at once: 1 unless tab mode is on
+     */
+    public static int tabsPerBrowser() {
+        return Math.max(1, TABS_PER_BROWSER);
+    }
+
+    /**
+     * Returns a driver for one test, in the state the test requires: a tab of
+     * a shared browser when tab mode is on and the test is not
+     * {@link Isolated}, otherwise a parked or new browser of its own
+     */
+    public static WebDriver newDriver(ChromeOptions options, Method testMethod) {
+        SessionState state = StateScheduler.requiredState(testMethod);
+        if (TABS_PER_BROWSER > 1 && !isIsolated(testMethod)) {
+            WebDriver tab = openTab(options);
+            if (state != null) {
+                // Tabs never log in, so there are no cookies to drop
+                state.establish(tab, null);
+            }
+            return tab;
+        }
+        if (state == null) {
+            return newChromeDriver(options);
+        }
+        WebDriver parked = StateScheduler.isEnabled() ? takeParked(options, state) : null;
+        if (parked != null) {
+            try {
+                establish(parked, state, true);
+                return parked;
+            } catch (WebDriverException e) {
+                System.err.println("⚠ Parked session could not reach " + state + ", starting a new one: "
+                    + e.getMessage());
+                quit(parked);
+            }
+        }
+        WebDriver driver = newChromeDriver(options);
+        establish(driver, state, false);
+        return driver;
+    }
+
+    /**
+     * Ends a test's use of its driver: parks the session for the next test
+     * after a passing test with a required state, and quits it otherwise
+     */
+    public static void release(WebDriver driver, ITestResult result) {
+        Session session = driver == null ? null : SESSIONS.get(driver);
+        if (session == null || session.state == null || !StateScheduler.isEnabled()
+                || result.getStatus() != ITestResult.SUCCESS) {
+            quit(driver);
+            return;
+        }
+        if (session.processMonitor != null && session.processMonitor.needsRecycle()) {
+            System.out.println("♻ Recycling session " + session.processMonitor.pid() + " instead of reusing it");
+            quit(driver);
+            return;
+        }
+        TraceRecorder.Span span = TraceRecorder.begin("session.park", "session");
+        try {
+            // Otherwise chromedriver keeps this test's events for as long as the session is reused
+            session.recorder.drainLogs(session.chromeDriver);
+            // The next test expects a single window
+            List<String> handles = new ArrayList<>(driver.getWindowHandles());
+            for (String handle : handles.subList(1, handles.size())) {
+                driver.switchTo().window(handle).close();
+            }
+            driver.switchTo().window(handles.get(0));
+        } catch (WebDriverException e) {
+            System.err.println("⚠ Session cannot be reused: " + e.getMessage());
+            quit(driver);
+            return;
+        } finally {
+            span.close();
+        }
+        if (CURRENT.get() == session) {
+            CURRENT.remove();
+        }
+        synchronized (PARKED) {
+            PARKED.add(driver);
+        }
+    }
+
+    /**
+     * Starts a Chrome session for the given options
+     */
+    public static WebDriver newChromeDriver(ChromeOptions options) {
+        // Taken before the options below are added, to match the options tests pass in
+        String key = optionsKey(options);
+        // Ready before this session takes its slot: preparing a template runs a browser under a slot of its own
+        Path template = null;
+        if (ChromeProfileTemplate.isEnabled()) {
+            TraceRecorder.Span templateSpan = TraceRecorder.begin("profile.template", "session");
+            try {
+                template = ChromeProfileTemplate.templateFor(prefsOf(options));
+            } catch (RuntimeException e) {
+                System.err.println("⚠ Chrome profile template unavailable, using a fresh profile: " + e.getMessage());
+            } finally {
+                templateSpan.close();
+            }
+        }
+        // Waits here while the machine has no room for another browser, quitting idle ones first
+        TraceRecorder.Span acquireSpan = TraceRecorder.begin("governor.acquire", "session");
+        try {
+            ConcurrencyGovernor.acquire(DriverFactory::quitIdleBrowser);
+        } finally {
+            acquireSpan.close();
+        }
+        long start = System.nanoTime();
+        Path profileDir = null;
+        ChromeDriver chromeDriver = null;
+        ProcessMonitor processMonitor = null;
+        try {
+            options.addArguments("--disable-component-update");
+
+            // Console (and opt-in network) events are buffered by chromedriver until the flight recorder drains them
+            LoggingPreferences logs = new LoggingPreferences();
+            logs.enable(LogType.BROWSER, Level.ALL);
+            if (FlightRecorder.recordsNetwork()) {
+                logs.enable(LogType.PERFORMANCE, Level.ALL);
+                options.setExperimentalOption("perfLoggingPrefs", Map.of("enableNetwork", true, "enablePage", false));
+            }
+            options.setCapability(ChromeOptions.LOGGING_PREFS, logs);
+
+            if (template != null) {
+                TraceRecorder.Span cloneSpan = TraceRecorder.begin("profile.clone", "session");
+                try {
+                    profileDir = ChromeProfileTemplate.cloneFor(template);
+                    options.addArguments("--user-data-dir=" + profileDir.toAbsolutePath());
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("⚠ Chrome profile copy failed, using a fresh profile: " + e.getMessage());
+                    ChromeProfileTemplate.discard(profileDir);
+                    profileDir = null;
+                } finally {
+                    cloneSpan.close();
+                }
+            }
+
+            // An explicit service exposes the port, which identifies the chromedriver process to monitor
+            ChromeDriverService service = ChromeDriverService.createDefaultService();
+            TraceRecorder.Span startSpan = TraceRecorder.begin("driver.start", "session");
+            try {
+                chromeDriver = new ChromeDriver(service, options);
+            } finally {
+                startSpan.close();
+            }
+            // Network and CPU emulation is per tab; new tabs of a shared browser get it in openTab()
+            EmulationProfile.active().apply(chromeDriver);
+            processMonitor = ProcessMonitor.forChromeDriver(service.getUrl().getPort());
+            Session session = new Session(chromeDriver, key, profileDir, start, processMonitor);
+            WebDriver driver = new EventFiringDecorator<WebDriver>(
+                    new FirstNavigationTimer(session), new NavigationTracer(), session.recorder)
+                .decorate(chromeDriver);
+            SESSIONS.put(driver, session);
+            CURRENT.set(session);
+            return driver;
+        } catch (RuntimeException e) {
+            // A session that failed to start must not keep its browser, profile copy or governor slot
+            if (chromeDriver != null) {
+                try {
+                    chromeDriver.quit();
+                } catch (RuntimeException quitFailure) {
+                    e.addSuppressed(quitFailure);
+                }
+            }
+            if (processMonitor != null) {
+                processMonitor.release();
+            }
+            ChromeProfileTemplate.discard(profileDir);
+            ConcurrencyGovernor.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Quits a session created by this factory and removes its profile copy
+     */
+    public static void quit(WebDriver driver) {
+        if (driver == null) {
+            return;
+        }
+        SharedBrowser browser = SharedBrowser.browserOf(driver);
+        if (browser != null) {
+            // The browser outlives the tab, and with it chromedriver's log buffers
+            Session session = SESSIONS.get(browser.driver());
+            if (session != null) {
+                session.recorder.drainLogs(session.chromeDriver);
+            }
+            if (CURRENT_TAB.get() == driver) {
+                CURRENT_TAB.remove();
+                CURRENT.remove();
+            }
+            // Blanks the tab and hands it back to the browser
+            TraceRecorder.Span span = TraceRecorder.begin("tab.close", "session");
+            try {
+                driver.quit();
+            } finally {
+                span.close();
+            }
+            return;
+        }
+        Session session = SESSIONS.remove(driver);
+        if (session != null && CURRENT.get() == session) {
+            CURRENT.remove();
+        }
+        TraceRecorder.Span span = TraceRecorder.begin("driver.quit", "session");
+        try {
+            driver.quit();
+        } finally {
+            span.close();
+        }
+        if (session != null) {
+            ConcurrencyGovernor.release();
+            ChromeProfileTemplate.discard(session.profileDir);
+            if (session.processMonitor != null) {
+                session.processMonitor.release();
+            }
+        }
+    }
+
+    /**
+     * Dumps the flight recorder of the session most recently started on this
+     * thread. Returns the artifact folder, or null if there is no live session.
+     */
+    public static Path dumpFlightRecorder(String testName, Throwable failure) {
+        Session session = CURRENT.get();
+        if (session == null) {
+            return null;
+        }
+        WebDriver tab = CURRENT_TAB.get();
+        if (tab != null) {
+            // The recorder is shared by all tabs; the screenshot and DOM must come from this test's tab
+            return SharedBrowser.browserOf(tab).inTab(tab,
+                () -> session.recorder.dump(session.chromeDriver, testName, failure));
+        }
+        return session.recorder.dump(session.chromeDriver, testName, failure);
+    }
+
+    /**
+     * Process monitor of the session most recently started on this thread, or
+     * null where the process tree cannot be monitored
+     */
+    public static ProcessMonitor currentProcessMonitor() {
+        Session session = CURRENT.get();
+        return session == null ? null : session.processMonitor;
+    }
+
+    /**
+     * Quits every shared and parked browser; called when the suite finishes
+     */
+    public static void quitIdleBrowsers() {
+        List<WebDriver> idle = new ArrayList<>();
+        synchronized (SHARED_BROWSERS) {
+            for (SharedBrowser browser : SHARED_BROWSERS.keySet()) {
+                idle.add(browser.driver());
+            }
+            SHARED_BROWSERS.clear();
+        }
+        synchronized (PARKED) {
+            idle.addAll(PARKED);
+            PARKED.clear();
+        }
+        for (WebDriver driver : idle) {
+            quit(driver);
+        }
+    }
+
+    /**
+     * Quits the oldest parked browser, or else a shared browser with no open
+     * tab, so its governor slot can go to a new browser. Returns false if no
+     * browser is idle.
+     */
+    static boolean quitIdleBrowser() {
+        WebDriver idle;
+        synchronized (PARKED) {
+            idle = PARKED.poll();
+        }
+        if (idle == null) {
+            synchronized (SHARED_BROWSERS) {
+                // Removed under the lock that openTab() reserves tabs under, so no test can pick it meanwhile
+                SharedBrowser unused = SHARED_BROWSERS.keySet().stream()
+                    .filter(browser -> browser.openTabs() == 0)
+                    .findFirst()
+                    .orElse(null);
+                if (unused != null) {
+                    SHARED_BROWSERS.remove(unused);
+                    idle = unused.driver();
+                }
+            }
+        }
+        if (idle == null) {
+            return false;
+        }
+        System.out.println("⏏ Quitting idle browser to free a session slot");
+        quit(idle);
+        return true;
+    }
+
+    private static void establish(WebDriver driver, SessionState state, boolean reused) {
+        Session session = SESSIONS.get(driver);
+        boolean loggedIn;
+        TraceRecorder.Span span = TraceRecorder.begin("state." + state, "session")
+                .arg("reused", String.valueOf(reused));
+        try {
+            loggedIn = state.establish(driver, session.state);
+        } finally {
+            span.close();
+        }
+        session.state = state;
+        StateScheduler.recordEstablished(state, reused, loggedIn);
+        if (reused) {
+            System.out.println("♲ Reused session for " + state + (loggedIn ? " (logged in again)" : ""));
+        }
+    }
+
+    /**
+     * Takes a parked session started with the same options, preferring one
+     * last used in the same state, or returns null if none fits. Parked
+     * sessions that do not fit stay parked; the governor has them quit when
+     * a new browser needs their slot.
+     */
+    private static WebDriver takeParked(ChromeOptions options, SessionState state) {
+        String key = optionsKey(options);
+        WebDriver match = null;
+        synchronized (PARKED) {
+            for (WebDriver candidate : PARKED) {
+                Session session = SESSIONS.get(candidate);
+                if (session.optionsKey.equals(key)
+                        && (match == null || session.state == state && SESSIONS.get(match).state != state)) {
+                    match = candidate;
+                }
+            }
+            if (match != null) {
+                PARKED.remove(match);
+            }
+        }
+        if (match != null) {
+            CURRENT.set(SESSIONS.get(match));
+        }
+        return match;
+    }
+
+    private static WebDriver openTab(ChromeOptions options) {
+        // Only browsers started with the same options can host the test
+        String key = optionsKey(options);
+        SharedBrowser browser = null;
+        synchronized (SHARED_BROWSERS) {
+            for (Map.Entry<SharedBrowser, String> entry : SHARED_BROWSERS.entrySet()) {
+                SharedBrowser candidate = entry.getKey();
+                if (entry.getValue().equals(key) && candidate.openTabs() < TABS_PER_BROWSER
+                        && (browser == null || candidate.openTabs() < browser.openTabs())) {
+                    browser = candidate;
+                }
+            }
+            if (browser != null) {
+                browser.reserveTab();
+            }
+        }
+        if (browser == null) {
+            browser = new SharedBrowser(newChromeDriver(options));
+            browser.reserveTab();
+            synchronized (SHARED_BROWSERS) {
+                SHARED_BROWSERS.put(browser, key);
+            }
+        }
+
+        WebDriver tab;
+        TraceRecorder.Span span = TraceRecorder.begin("tab.open", "session");
+        try {
+            tab = browser.openTab();
+        } finally {
+            span.close();
+        }
+        Session session = SESSIONS.get(browser.driver());
+        if (EmulationProfile.active().isThrottled()) {
+            browser.inTab(tab, () -> {
+                EmulationProfile.active().apply(session.chromeDriver);
+                return null;
+            });
+        }
+        CURRENT.set(session);
+        CURRENT_TAB.set(tab);
+        return tab;
+    }
+
+    private static boolean isIsolated(Method testMethod) {
+        return testMethod == null || testMethod.isAnnotationPresent(Isolated.class)
+            || testMethod.getDeclaringClass().isAnnotationPresent(Isolated.class);
+    }
+
+    private static String optionsKey(ChromeOptions options) {
+        return new TreeMap<>(options.asMap()).toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> prefsOf(ChromeOptions options) {
+        Object chromeOptions = options.asMap().get(ChromeOptions.CAPABILITY);
+        if (chromeOptions instanceof Map) {
+            Object prefs = ((Map<String, Object>) chromeOptions).get("prefs");
+            if (prefs instanceof Map) {
+                return (Map<String, Object>) prefs;
+            }
+        }
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Prints time-to-first-navigation once per session
+     */
+    private static final class FirstNavigationTimer implements WebDriverListener {
+        private final Session session;
+
+        private FirstNavigationTimer(Session session) {
+            this.session = session;
+        }
+
+        @Override
+        public void afterGet(WebDriver driver, String url) {
+            if (!session.navigated) {
+                session.navigated = true;
+                long elapsedMs = (System.nanoTime() - session.startNanos) / 1_000_000;
+                System.out.println("⏱ Time to first navigation: " + elapsedMs + " ms ("
+                    + (session.profileDir != null ? "profile template" : "fresh profile") + ")");
+            }
+        }
+    }
+
+    /**
+     * Records page loads and history navigation as trace spans
+     */
+    private static final class NavigationTracer implements WebDriverListener {
+        private final ThreadLocal<Long> start = new ThreadLocal<>();
+
+        @Override
+        public void beforeGet(WebDriver driver, String url) {
+            start.set(TraceRecorder.now());
+        }
+
+        @Override
+        public void afterGet(WebDriver driver, String url) {
+            record("get", url);
+        }
+
+        @Override
+        public void beforeTo(WebDriver.Navigation navigation, String url) {
+            start.set(TraceRecorder.now());
+        }
+
+        @Override
+        public void afterTo(WebDriver.Navigation navigation, String url) {
+            record("navigate.to", url);
+        }
+
+        @Override
+        public void beforeBack(WebDriver.Navigation navigation) {
+            start.set(TraceRecorder.now());
+        }
+
+        @Override
+        public void afterBack(WebDriver.Navigation navigation) {
+            record("navigate.back", null);
+        }
+
+        @Override
+        public void beforeRefresh(WebDriver.Navigation navigation) {
+            start.set(TraceRecorder.now());
+        }
+
+        @Override
+        public void afterRefresh(WebDriver.Navigation navigation) {
+            record("navigate.refresh", null);
+        }
+
+        private void record(String name, String url) {
+            Long begin = start.get();
+            if (begin != null) {
+                start.remove();
+                String args = url == null ? null : TraceRecorder.quote("url") + ":" + TraceRecorder.quote(url);
+                TraceRecorder.complete(name, "driver", begin, TraceRecorder.now() - begin, Thread.currentThread(), args);
+            }
+        }
+    }
+}
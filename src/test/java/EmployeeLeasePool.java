@@ -0,0 +1,251 @@
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of pre-provisioned employees, each with its own ESS login, leased
+ * exclusively to one test at a time.
+ *
+ * Tests that edit "their" record (My Info, personal details) lease an entity
+ * instead of sharing the Admin user, so parallel tests never collide. Waiting
+ * for a lease is bounded by a timeout and served in arrival order. A returned
+ * entity is reset to its original names in the background before it becomes
+ * available again, and the pool provisions more entities in the background
+ * when it runs low. Lease wait times and starvation (leases that timed out) are
+ * reported when the pool is closed, to help size it against the thread count.
+ *
+ *   -Dpool.size=4        entities provisioned up front
+ *   -Dpool.maxSize=8     upper bound when refilling
+ *   -Dpool.lowWater=1    refill when fewer entities than this are available
+ */
+public final class EmployeeLeasePool implements AutoCloseable {
+    private static final String BASE_URL = "https://opensource-demo.orangehrmlive.com/";
+    private static final String ADMIN_USERNAME = "Admin";
+    private static final String ADMIN_PASSWORD = "admin123";
+    private static final String LEASE_PASSWORD = "Lease@12345a";
+    private static EmployeeLeasePool shared;
+    private static RuntimeException sharedFailure;
+
+    private final OrangeHrmApiClient api;
+    private final int maxSize;
+    private final int lowWater;
+    // Fair queue: threads waiting for an entity are served in arrival order
+    private final BlockingQueue<Entity> available;
+    private final ExecutorService background = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "employee-pool");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger provisioned = new AtomicInteger();
+    private final AtomicInteger refilling = new AtomicInteger();
+    private final AtomicInteger starved = new AtomicInteger();
+    private final AtomicInteger emptyOnRequest = new AtomicInteger();
+    private final List<Long> waitMillis = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * A provisioned employee and the ESS account that logs in as it
+     */
+    public static final class Entity {
+        public final OrangeHrmApiClient.Employee employee;
+        public final String username;
+        public final String password;
+
+        private Entity(OrangeHrmApiClient.Employee employee, String username, String password) {
+            this.employee = employee;
+            this.username = username;
+            this.password = password;
+        }
+    }
+
+    /**
+     * Exclusive use of one entity until closed
+     */
+    public final class Lease implements AutoCloseable {
+        private final Entity entity;
+        private boolean returned;
+
+        private Lease(Entity entity) {
+            this.entity = entity;
+        }
+
+        public Entity entity() {
+            return entity;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!returned) {
+                returned = true;
+                release(entity);
+            }
+        }
+    }
+
+    public EmployeeLeasePool(OrangeHrmApiClient api, int initialSize, int maxSize, int lowWater) {
+        this.api = api;
+        this.maxSize = maxSize;
+        this.lowWater = lowWater;
+        this.available = new ArrayBlockingQueue<>(maxSize, true);
+        try {
+            provision(initialSize);
+        } catch (RuntimeException e) {
+            // Delete whatever was created before the failure
+            background.shutdownNow();
+            api.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Pool shared by all test classes, provisioned through an Admin API session
+     * on first use. If that fails, later calls fail fast with the same cause
+     * instead of provisioning again for every test.
+     */
+    public static synchronized EmployeeLeasePool shared() {
+        if (sharedFailure != null) {
+            throw new IllegalStateException("Employee pool could not be provisioned: " + sharedFailure.getMessage(),
+                sharedFailure);
+        }
+        if (shared == null) {
+            long start = System.nanoTime();
+            try {
+                shared = new EmployeeLeasePool(OrangeHrmApiClient.login(BASE_URL, ADMIN_USERNAME, ADMIN_PASSWORD),
+                    Integer.getInteger("pool.size", 4), Integer.getInteger("pool.maxSize", 8),
+                    Integer.getInteger("pool.lowWater", 1));
+            } catch (RuntimeException e) {
+                sharedFailure = e;
+                throw e;
+            }
+            System.out.println("✓ Employee pool provisioned in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+        return shared;
+    }
+
+    public static synchronized void closeShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    /**
+     * Returns a lease immediately, or null if no entity is available
+     */
+    public Lease tryLease() {
+        Entity entity = available.poll();
+        if (entity == null) {
+            emptyOnRequest.incrementAndGet();
+            return null;
+        }
+        waitMillis.add(0L);
+        refillIfLow();
+        return new Lease(entity);
+    }
+
+    /**
+     * Waits up to the timeout for an entity, in arrival order with other waiters
+     */
+    public Lease lease(Duration timeout) throws InterruptedException {
+        long start = System.nanoTime();
+        if (available.isEmpty()) {
+            emptyOnRequest.incrementAndGet();
+            refillIfLow();
+        }
+        Entity entity = available.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        if (entity == null) {
+            starved.incrementAndGet();
+            throw new IllegalStateException("No pooled employee available within " + timeout.toMillis()
+                + " ms - increase -Dpool.size or -Dpool.maxSize");
+        }
+        waitMillis.add((System.nanoTime() - start) / 1_000_000);
+        refillIfLow();
+        return new Lease(entity);
+    }
+
+    /**
+     * Prints lease statistics and deletes every provisioned entity
+     */
+    @Override
+    public void close() {
+        background.shutdown();
+        try {
+            background.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println(statistics());
+        api.close();
+    }
+
+    public String statistics() {
+        List<Long> waits;
+        synchronized (waitMillis) {
+            waits = new ArrayList<>(waitMillis);
+        }
+        Collections.sort(waits);
+        long total = waits.stream().mapToLong(Long::longValue).sum();
+        return String.format("Employee pool: %d provisioned, %d leases, wait avg %d ms / p95 %d ms / max %d ms, "
+                + "empty on request %d, starved %d",
+            provisioned.get(), waits.size(),
+            waits.isEmpty() ? 0 : total / waits.size(),
+            waits.isEmpty() ? 0 : waits.get((int) Math.ceil(0.95 * waits.size()) - 1),
+            waits.isEmpty() ? 0 : waits.get(waits.size() - 1),
+            emptyOnRequest.get(), starved.get());
+    }
+
+    private void release(Entity entity) {
+        Runnable reset = () -> {
+            try {
+                // Undo whatever the test changed on the record before anyone else sees it
+                api.updateEmployees(Map.of(entity.employee.empNumber,
+                    new String[] {entity.employee.firstName, entity.employee.lastName}));
+                available.offer(entity);
+            } catch (RuntimeException e) {
+                System.err.println("⚠ Could not reset pooled employee " + entity.employee + ", dropping it: "
+                    + e.getMessage());
+                provisioned.decrementAndGet();
+                refillIfLow();
+            }
+        };
+        try {
+            background.execute(reset);
+        } catch (RejectedExecutionException e) {
+            // The pool is being closed; reset on the test's thread rather than failing its teardown
+            reset.run();
+        }
+    }
+
+    private void refillIfLow() {
+        int missing = Math.min(lowWater - available.size(), maxSize - provisioned.get() - refilling.get());
+        if (missing > 0 && refilling.compareAndSet(0, missing)) {
+            try {
+                background.execute(() -> {
+                    try {
+                        provision(missing);
+                    } catch (RuntimeException e) {
+                        System.err.println("⚠ Employee pool refill failed: " + e.getMessage());
+                    } finally {
+                        refilling.set(0);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // The pool is closed; nothing to refill
+                refilling.set(0);
+            }
+        }
+    }
+
+    private void provision(int count) {
+        List<String[]> names = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            names.add(new String[] {"Pooled", "Employee" + (provisioned.get() + i + 1)});
+        }
+        for (OrangeHrmApiClient.Employee employee : api.createEmployees(names)) {
+            String username = "pool." + employee.employeeId.toLowerCase();
+            api.createUser(employee.empNumber, username, LEASE_PASSWORD);
+            provisioned.incrementAndGet();
+            available.offer(new Entity(employee, username, LEASE_PASSWORD));
+        }
+    }
+}
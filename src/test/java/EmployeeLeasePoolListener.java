@@ -0,0 +1,13 @@
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+
+/**
+ * Reports lease statistics and deletes the pooled employees when the suite finishes
+ */
+public class EmployeeLeasePoolListener implements ISuiteListener {
+
+    @Override
+    public void onFinish(ISuite suite) {
+        EmployeeLeasePool.closeShared();
+    }
+}
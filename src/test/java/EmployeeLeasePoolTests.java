@@ -0,0 +1,132 @@
+import org.testng.Assert;
+import org.testng.annotations.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.*;
+
+/**
+ * Tests for EmployeeLeasePool against {@link OrangeHrmApiStub}, a local stub
+ * of the PIM and user endpoints, so they run without a browser or the demo site.
+ */
+public class EmployeeLeasePoolTests {
+    private static final String API_PATH = OrangeHrmApiStub.API_PATH;
+
+    private OrangeHrmApiStub stub;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        stub = new OrangeHrmApiStub();
+    }
+
+    @AfterMethod
+    public void teardown() {
+        if (stub != null) {
+            stub.close();
+        }
+    }
+
+    private EmployeeLeasePool newPool(int size) {
+        return new EmployeeLeasePool(new OrangeHrmApiClient(stub.baseUrl(), "session-123"), size, size, 0);
+    }
+
+    private long count(String prefix) {
+        return stub.count(prefix);
+    }
+
+    @Test(priority = 1, groups = {"Api"}, description = "Verify each provisioned employee is leased to one holder at a time")
+    public void testLeasesAreExclusive() throws InterruptedException {
+        try (EmployeeLeasePool pool = newPool(2)) {
+            Assert.assertEquals(count("POST " + API_PATH + "/admin/users"), 2, "Each employee should get an ESS login");
+
+            EmployeeLeasePool.Lease first = pool.lease(Duration.ofSeconds(1));
+            EmployeeLeasePool.Lease second = pool.lease(Duration.ofSeconds(1));
+            Assert.assertNotEquals(first.entity().employee.empNumber, second.entity().employee.empNumber,
+                "Two leases should never share an employee");
+            Assert.assertNotEquals(first.entity().username, second.entity().username,
+                "Each employee should have its own username");
+            Assert.assertNull(pool.tryLease(), "An exhausted pool should not hand out a lease");
+        }
+
+        System.out.println("✓ Leases are exclusive");
+    }
+
+    @Test(priority = 2, groups = {"Api"}, description = "Verify a lease waits while the pool is exhausted and gets the returned employee")
+    public void testLeaseBlocksUntilReturned() throws Exception {
+        try (EmployeeLeasePool pool = newPool(1)) {
+            EmployeeLeasePool.Lease held = pool.lease(Duration.ofSeconds(1));
+            ExecutorService waiter = Executors.newSingleThreadExecutor();
+            try {
+                Future<EmployeeLeasePool.Lease> waiting = waiter.submit(() -> pool.lease(Duration.ofSeconds(10)));
+                Thread.sleep(300);
+                Assert.assertFalse(waiting.isDone(), "Lease should block while the only employee is held");
+
+                held.close();
+                EmployeeLeasePool.Lease next = waiting.get(10, TimeUnit.SECONDS);
+                Assert.assertEquals(next.entity().employee.empNumber, held.entity().employee.empNumber,
+                    "The waiting test should get the returned employee");
+                next.close();
+            } finally {
+                waiter.shutdownNow();
+            }
+        }
+
+        System.out.println("✓ Exhausted pool blocks until an employee is returned");
+    }
+
+    @Test(priority = 3, groups = {"Api"}, description = "Verify a returned employee is reset before it is leased again")
+    public void testReturnedEmployeeIsResetFirst() throws InterruptedException {
+        try (EmployeeLeasePool pool = newPool(1)) {
+            EmployeeLeasePool.Lease lease = pool.lease(Duration.ofSeconds(1));
+            int empNumber = lease.entity().employee.empNumber;
+            CountDownLatch resetGate = stub.holdResets();
+
+            lease.close();
+            Assert.assertNull(pool.tryLease(), "Employee should not be available while its reset is in flight");
+
+            resetGate.countDown();
+            EmployeeLeasePool.Lease again = pool.lease(Duration.ofSeconds(10));
+            Assert.assertEquals(again.entity().employee.empNumber, empNumber, "Reset employee should be leased again");
+            Assert.assertEquals(count("PUT " + API_PATH + "/pim/employees/" + empNumber + "/personal-details"), 1,
+                "Returning the lease should reset the employee's names");
+            again.close();
+        }
+
+        System.out.println("✓ Returned employee reset before reuse");
+    }
+
+    @Test(priority = 4, groups = {"Api"}, description = "Verify a lease times out and a lease returned after close does not throw")
+    public void testTimeoutAndReturnAfterClose() throws InterruptedException {
+        EmployeeLeasePool pool = newPool(1);
+        EmployeeLeasePool.Lease held = pool.lease(Duration.ofSeconds(1));
+        try {
+            pool.lease(Duration.ofMillis(200));
+            Assert.fail("Lease should time out while the pool is exhausted");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(pool.statistics().contains("starved 1"), "Timeout should count as starvation. Actual: "
+                + pool.statistics());
+        }
+
+        pool.close();
+        // A test's teardown may return its lease after the suite closed the pool
+        held.close();
+        Assert.assertEquals(count("DELETE " + API_PATH + "/pim/employees"), 1, "Close should delete the employees");
+
+        System.out.println("✓ Lease timeout reported and late return tolerated");
+    }
+
+    @Test(priority = 5, groups = {"Api"}, description = "Verify a pool that fails to provision deletes what it created")
+    public void testFailedProvisioningCleansUp() {
+        stub.fail("/admin/users", 500);
+        try {
+            newPool(2);
+            Assert.fail("Pool construction should fail when user accounts cannot be created");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains("500"), "Error should include the status. Actual: " + e.getMessage());
+        }
+        Assert.assertEquals(count("DELETE " + API_PATH + "/pim/employees"), 1,
+            "Employees created before the failure should be deleted");
+
+        System.out.println("✓ Failed provisioning cleaned up");
+    }
+}
@@ -1,30 +1,34 @@
 import io.github.bonigarcia.wdm.WebDriverManager;
 import org.apache.commons.io.FileUtils;
 import org.openqa.selenium.*;
-import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 import org.testng.Assert;
+import org.testng.ITestResult;
 import org.testng.annotations.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
+@Isolated("logs in; the session cookie would be shared with every tab")
+@RequiresState(SessionState.LOGIN_PAGE)
 public class EmployeeProfileTests {
-    private WebDriver driver;
-    private WebDriverWait wait;
-    private static final String BASE_URL = "https://opensource-demo.orangehrmlive.com/";
+    // Per thread, so test methods can run in parallel on one instance
+    private final ThreadLocal<WebDriver> drivers = new ThreadLocal<>();
+    private final ThreadLocal<AdaptiveWait> waits = new ThreadLocal<>();
+    private final ThreadLocal<EmployeeLeasePool.Lease> leases = new ThreadLocal<>();
     private static final String VALID_USERNAME = "Admin";
     private static final String VALID_PASSWORD = "admin123";
     private static final String SCREENSHOT_DIR = "screenshots";
     private static final String TEST_IMAGE_PATH = new File("test-resources/sample-profile.jpg").getAbsolutePath();
+    private static final boolean USE_EMPLOYEE_POOL = Boolean.parseBoolean(System.getProperty("pool.enabled", "true"));
 
     @BeforeMethod
-    public void setup() {
+    public void setup(Method method) {
         // Setup ChromeDriver using WebDriverManager
         WebDriverManager.chromedriver().setup();
         
@@ -34,9 +38,10 @@ public class EmployeeProfileTests {
         options.addArguments("--disable-notifications");
         options.addArguments("--disable-popup-blocking");
         
-        // Initialize WebDriver
-        driver = new ChromeDriver(options);
-        wait = new WebDriverWait(driver, Duration.ofSeconds(15));
+        // Initialize WebDriver, already on the login page
+        WebDriver driver = DriverFactory.newDriver(options, method);
+        drivers.set(driver);
+        waits.set(new AdaptiveWait(driver, Duration.ofSeconds(15)));
         
         // Create screenshots directory if it doesn't exist
         File screenshotDir = new File(SCREENSHOT_DIR);
@@ -46,39 +51,65 @@ public class EmployeeProfileTests {
     }
 
     @AfterMethod
-    public void teardown() {
-        // Close browser
-        if (driver != null) {
-            driver.quit();
+    public void teardown(ITestResult result) {
+        try {
+            // Close browser, or park it for the next test that starts in the same state
+            DriverFactory.release(drivers.get(), result);
+        } finally {
+            drivers.remove();
+            waits.remove();
+
+            // Return the leased employee so it can be reset and reused, even if the release failed
+            EmployeeLeasePool.Lease lease = leases.get();
+            if (lease != null) {
+                lease.close();
+                leases.remove();
+            }
         }
     }
 
     /**
-     * Helper method to perform login
+     * Helper method to perform login. Logs in as an employee leased from the
+     * pool, so parallel tests never edit the same My Info record; with
+     * -Dpool.enabled=false it falls back to the shared Admin user and returns null.
      */
-    private void performLogin() {
-        driver.get(BASE_URL);
-        
+    private EmployeeLeasePool.Entity performLogin() throws InterruptedException {
+        WebDriver driver = drivers.get();
+        AdaptiveWait wait = waits.get();
+        EmployeeLeasePool.Entity entity = null;
+        String username = VALID_USERNAME;
+        String password = VALID_PASSWORD;
+        if (USE_EMPLOYEE_POOL) {
+            EmployeeLeasePool.Lease lease = EmployeeLeasePool.shared().lease(Duration.ofSeconds(60));
+            leases.set(lease);
+            entity = lease.entity();
+            username = entity.username;
+            password = entity.password;
+        }
+
         // Wait for login page and enter credentials
         WebElement usernameField = wait.until(
             ExpectedConditions.presenceOfElementLocated(By.name("username"))
         );
-        usernameField.sendKeys(VALID_USERNAME);
+        usernameField.sendKeys(username);
         
         WebElement passwordField = driver.findElement(By.name("password"));
-        passwordField.sendKeys(VALID_PASSWORD);
+        passwordField.sendKeys(password);
         
         WebElement loginButton = driver.findElement(By.cssSelector("button[type='submit']"));
+        long loginStart = System.nanoTime();
         loginButton.click();
         
-        // Wait for dashboard to load
-        wait.until(ExpectedConditions.urlContains("dashboard"));
+        // Wait for dashboard to load, timed against the emulation profile's threshold
+        FlowTimings.await(driver, "dashboard", loginStart, ExpectedConditions.urlContains("dashboard"));
+        return entity;
     }
 
     /**
      * Helper method to capture screenshot
      */
     private void captureScreenshot(String testName) {
+        WebDriver driver = drivers.get();
         try {
             TakesScreenshot ts = (TakesScreenshot) driver;
             File source = ts.getScreenshotAs(OutputType.FILE);
@@ -97,21 +128,33 @@ public class EmployeeProfileTests {
 
     @Test(priority = 1, groups = {"Smoke", "Regression"}, description = "Navigate to profile page, verify upload option and capture screenshot")
     public void testProfileImageUpload() {
+        WebDriver driver = drivers.get();
+        AdaptiveWait wait = waits.get();
         try {
             // Step 1: Login
-            performLogin();
-            System.out.println("✓ Login successful");
+            EmployeeLeasePool.Entity entity = performLogin();
+            System.out.println("✓ Login successful" + (entity != null ? " as pooled employee " + entity.employee : ""));
 
             // Step 2: Navigate to My Info
             WebElement myInfoMenu = wait.until(
                 ExpectedConditions.elementToBeClickable(By.xpath("//span[text()='My Info']"))
             );
+            long myInfoStart = System.nanoTime();
             myInfoMenu.click();
             System.out.println("✓ Navigated to My Info section");
 
-            // Wait for My Info page to load
-            wait.until(ExpectedConditions.urlContains("viewPersonalDetails"));
-            Thread.sleep(3000); // Allow page to fully load
+            // Wait for My Info page to load, timed against the emulation profile's threshold
+            FlowTimings.await(driver, "viewPersonalDetails", myInfoStart, ExpectedConditions.and(
+                ExpectedConditions.urlContains("viewPersonalDetails"),
+                ExpectedConditions.presenceOfElementLocated(By.name("firstName"))));
+            WebElement firstNameField = wait.until(
+                ExpectedConditions.presenceOfElementLocated(By.name("firstName"))
+            );
+            if (entity != null) {
+                wait.until(ExpectedConditions.attributeToBe(firstNameField, "value", entity.employee.firstName));
+            } else {
+                Thread.sleep(3000); // Allow page to fully load
+            }
 
             // Step 3: Verify profile page elements are displayed
             // Look for the profile image area
@@ -124,9 +167,14 @@ public class EmployeeProfileTests {
                 System.out.println("⚠ Profile image container not found, but page loaded successfully");
             }
             
-            // Verify Personal Details form is present
-            boolean formPresent = driver.findElements(By.name("firstName")).size() > 0;
-            Assert.assertTrue(formPresent, "Personal Details form should be present on the page");
+            // Verify Personal Details form is present and shows the leased employee
+            Assert.assertTrue(firstNameField.isDisplayed(), "Personal Details form should be present on the page");
+            if (entity != null) {
+                Assert.assertEquals(firstNameField.getAttribute("value"), entity.employee.firstName,
+                    "Personal Details form should show the leased employee");
+                Assert.assertEquals(driver.findElement(By.name("lastName")).getAttribute("value"),
+                    entity.employee.lastName, "Personal Details form should show the leased employee");
+            }
             System.out.println("✓ Personal Details form verified");
             
             // Try to locate file upload input (even if hidden) - demonstrates file upload capability
@@ -155,6 +203,8 @@ public class EmployeeProfileTests {
 
     @Test(priority = 2, groups = {"Regression"}, description = "Verify My Info page loads correctly")
     public void testMyInfoPageLoad() {
+        WebDriver driver = drivers.get();
+        AdaptiveWait wait = waits.get();
         try {
             // Login
             performLogin();
@@ -163,10 +213,13 @@ public class EmployeeProfileTests {
             WebElement myInfoMenu = wait.until(
                 ExpectedConditions.elementToBeClickable(By.xpath("//span[text()='My Info']"))
             );
+            long myInfoStart = System.nanoTime();
             myInfoMenu.click();
 
-            // Wait for My Info page to load
-            wait.until(ExpectedConditions.urlContains("viewPersonalDetails"));
+            // Wait for My Info page to load, timed against the emulation profile's threshold
+            FlowTimings.await(driver, "viewPersonalDetails", myInfoStart, ExpectedConditions.and(
+                ExpectedConditions.urlContains("viewPersonalDetails"),
+                ExpectedConditions.presenceOfElementLocated(By.name("firstName"))));
             Thread.sleep(2000); // Allow page to fully load
             
             // Verify we're on the correct page by checking the URL
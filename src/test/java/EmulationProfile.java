@@ -0,0 +1,127 @@
+import org.openqa.selenium.chrome.ChromeDriver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Named network and CPU emulation profile, applied to every new browser
+ * session (and every new tab of a shared browser) through DevTools.
+ *
+ * Profiles and their per-flow timing thresholds are defined in
+ * test-resources/emulation-profiles.properties; {@link FlowTimings} compares
+ * measured flows against the active profile's thresholds. Each profile also
+ * has a wait multiplier that {@link #scale} applies to every wait ceiling, so
+ * slow profiles reach their flow thresholds instead of failing on timeouts.
+ *
+ *   -Demulation.profile=slow-branch    profile to run under (default: none)
+ *   -Demulation.file=test-resources/emulation-profiles.properties
+ */
+public final class EmulationProfile {
+    public static final String NONE = "none";
+    private static final Path FILE = Paths.get(System.getProperty("emulation.file",
+        "test-resources" + File.separator + "emulation-profiles.properties"));
+    private static EmulationProfile active;
+
+    public final String name;
+    public final long latencyMs;
+    public final long downloadKbps;
+    public final long uploadKbps;
+    public final double cpuSlowdown;
+    public final double waitMultiplier;
+    private final Properties thresholds;
+
+    private EmulationProfile(String name, Properties properties) {
+        this.name = name;
+        this.latencyMs = Long.parseLong(properties.getProperty(name + ".latencyMs", "0"));
+        this.downloadKbps = Long.parseLong(properties.getProperty(name + ".downloadKbps", "0"));
+        this.uploadKbps = Long.parseLong(properties.getProperty(name + ".uploadKbps", "0"));
+        this.cpuSlowdown = Double.parseDouble(properties.getProperty(name + ".cpuSlowdown", "1"));
+        this.waitMultiplier = Math.max(1, Double.parseDouble(properties.getProperty(name + ".waitMultiplier", "1")));
+        this.thresholds = properties;
+    }
+
+    /**
+     * The profile selected with -Demulation.profile, loaded on first use
+     */
+    public static synchronized EmulationProfile active() {
+        if (active == null) {
+            String name = System.getProperty("emulation.profile", NONE);
+            Properties properties = new Properties();
+            if (!name.equals(NONE)) {
+                try (Reader in = Files.newBufferedReader(FILE, StandardCharsets.UTF_8)) {
+                    properties.load(in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot read emulation profiles from " + FILE, e);
+                }
+                if (properties.getProperty(name + ".latencyMs") == null) {
+                    TreeSet<String> names = new TreeSet<>();
+                    for (String key : properties.stringPropertyNames()) {
+                        names.add(key.substring(0, key.indexOf('.')));
+                    }
+                    throw new IllegalArgumentException("Unknown emulation profile '" + name + "', available: "
+                        + names);
+                }
+            }
+            active = new EmulationProfile(name, properties);
+            if (!name.equals(NONE)) {
+                System.out.println("✓ Emulation profile " + active);
+            }
+        }
+        return active;
+    }
+
+    public boolean isThrottled() {
+        return !name.equals(NONE);
+    }
+
+    /**
+     * Timing threshold of a flow in ms under this profile, or -1 if there is none
+     */
+    public long thresholdMillis(String flow) {
+        return Long.parseLong(thresholds.getProperty(name + ".threshold." + flow, "-1"));
+    }
+
+    /**
+     * A wait ceiling chosen for an unthrottled browser, stretched for this profile
+     */
+    public Duration scale(Duration ceiling) {
+        return Duration.ofMillis(Math.round(ceiling.toMillis() * waitMultiplier));
+    }
+
+    /**
+     * Applies the profile to the driver's current tab
+     */
+    public void apply(ChromeDriver driver) {
+        if (!isThrottled()) {
+            return;
+        }
+        if (latencyMs > 0 || downloadKbps > 0 || uploadKbps > 0) {
+            driver.executeCdpCommand("Network.enable", Map.of());
+            // Throughput is in bytes per second; -1 disables throttling in that direction
+            driver.executeCdpCommand("Network.emulateNetworkConditions", Map.of(
+                "offline", false,
+                "latency", latencyMs,
+                "downloadThroughput", downloadKbps > 0 ? downloadKbps * 1000 / 8 : -1,
+                "uploadThroughput", uploadKbps > 0 ? uploadKbps * 1000 / 8 : -1));
+        }
+        if (cpuSlowdown > 1) {
+            driver.executeCdpCommand("Emulation.setCPUThrottlingRate", Map.of("rate", cpuSlowdown));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (latency %d ms, down %d kbit/s, up %d kbit/s, CPU %.0fx, waits %.1fx)",
+            name, latencyMs, downloadKbps, uploadKbps, cpuSlowdown, waitMultiplier);
+    }
+}
@@ -0,0 +1,218 @@
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.logging.LogEntry;
+import org.openqa.selenium.logging.LogType;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-session flight recorder for failure artifacts.
+ *
+ * While a test runs, the recorder only appends each driver command to a
+ * fixed-size ring buffer; arguments are kept by reference and formatted only
+ * when a dump is requested. Console events, and with -DflightRecorder.network
+ * network events, are collected by chromedriver through Chrome's logging
+ * preferences. Network events come from the performance log, which makes
+ * chromedriver record every DevTools network event of the session, so they
+ * are off by default. Chromedriver buffers the events without a limit until
+ * they are read, so {@link #drainLogs} moves them into ring buffers of the
+ * same size whenever a test hands its session or tab back and before every
+ * dump. A dump captures the screenshot, DOM and logs on the
+ * test thread while the browser is still alive, then writes the files from a
+ * background thread.
+ *
+ *   -DflightRecorder.size=200    driver commands, console and network events kept per session
+ *   -DflightRecorder.dir=target/flight-recorder
+ *   -DflightRecorder.network=true   also record network events (performance log)
+ */
+public final class FlightRecorder implements WebDriverListener {
+    private static final int CAPACITY = Integer.getInteger("flightRecorder.size", 200);
+    private static final boolean NETWORK = Boolean.getBoolean("flightRecorder.network");
+    private static final Path ROOT = Paths.get(System.getProperty("flightRecorder.dir",
+        "target" + File.separator + "flight-recorder"));
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "flight-recorder-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long[] times = new long[CAPACITY];
+    private final String[] targets = new String[CAPACITY];
+    private final String[] methods = new String[CAPACITY];
+    private final Object[][] arguments = new Object[CAPACITY][];
+    private final Deque<LogEntry> console = new ArrayDeque<>();
+    private final Deque<LogEntry> network = new ArrayDeque<>();
+    private int next;
+    private int count;
+
+    /**
+     * Whether sessions should enable chromedriver's performance log for network events
+     */
+    public static boolean recordsNetwork() {
+        return NETWORK;
+    }
+
+    @Override
+    public synchronized void beforeAnyCall(Object target, Method method, Object[] args) {
+        times[next] = System.currentTimeMillis();
+        targets[next] = target.getClass().getSimpleName();
+        methods[next] = method.getName();
+        arguments[next] = args;
+        next = (next + 1) % CAPACITY;
+        count = Math.min(count + 1, CAPACITY);
+    }
+
+    /**
+     * Reads the console and network events chromedriver has buffered for the
+     * session, which empties its buffers, and keeps the last ones here
+     */
+    public void drainLogs(ChromeDriver driver) {
+        List<LogEntry> consoleEntries = capture(() -> driver.manage().logs().get(LogType.BROWSER).getAll());
+        List<LogEntry> performanceEntries = NETWORK
+            ? capture(() -> driver.manage().logs().get(LogType.PERFORMANCE).getAll()) : null;
+        synchronized (this) {
+            if (consoleEntries != null) {
+                consoleEntries.forEach(entry -> keep(console, entry));
+            }
+            if (performanceEntries != null) {
+                for (LogEntry entry : performanceEntries) {
+                    if (entry.getMessage().contains("\"method\":\"Network.")) {
+                        keep(network, entry);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Captures the session state for a failed test and queues it to be written.
+     * Returns the artifact folder the dump will be written to.
+     */
+    public Path dump(ChromeDriver driver, String testName, Throwable failure) {
+        List<String> commands = commandLog();
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss_SSS"));
+        Path folder = ROOT.resolve(testName.replaceAll("[^A-Za-z0-9._-]", "_") + "_" + timestamp).toAbsolutePath();
+
+        // Anything that needs the browser has to happen now, before teardown quits it
+        byte[] screenshot = capture(() -> driver.getScreenshotAs(OutputType.BYTES));
+        String dom = capture(driver::getPageSource);
+        drainLogs(driver);
+        List<String> console;
+        List<String> network;
+        synchronized (this) {
+            console = format(this.console, true);
+            network = format(this.network, false);
+        }
+
+        WRITER.submit(() -> {
+            try {
+                Files.createDirectories(folder);
+                Files.write(folder.resolve("commands.log"), commands, StandardCharsets.UTF_8);
+                if (failure != null) {
+                    Files.write(folder.resolve("failure.txt"), String.valueOf(failure).getBytes(StandardCharsets.UTF_8));
+                }
+                if (screenshot != null) {
+                    Files.write(folder.resolve("screenshot.png"), screenshot);
+                }
+                if (dom != null) {
+                    Files.write(folder.resolve("dom.html"), dom.getBytes(StandardCharsets.UTF_8));
+                }
+                Files.write(folder.resolve("console.log"), console, StandardCharsets.UTF_8);
+                if (NETWORK) {
+                    Files.write(folder.resolve("network.log"), network, StandardCharsets.UTF_8);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to write flight recording " + folder + ": " + e.getMessage());
+            }
+        });
+        return folder;
+    }
+
+    /**
+     * Waits for queued dumps to reach disk
+     */
+    public static void awaitWrites() {
+        try {
+            WRITER.submit(() -> { }).get(30, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            System.err.println("Flight recordings may be incomplete: " + e.getMessage());
+        }
+    }
+
+    private synchronized List<String> commandLog() {
+        List<String> lines = new ArrayList<>(count);
+        int start = (next - count + CAPACITY) % CAPACITY;
+        for (int i = 0; i < count; i++) {
+            int slot = (start + i) % CAPACITY;
+            lines.add(Instant.ofEpochMilli(times[slot]) + " " + targets[slot] + "." + methods[slot]
+                + describe(arguments[slot]));
+        }
+        return lines;
+    }
+
+    private static String describe(Object[] args) {
+        if (args == null || args.length == 0) {
+            return "()";
+        }
+        StringBuilder text = new StringBuilder("(");
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            Object arg = args[i];
+            // sendKeys passes a CharSequence[]
+            text.append(arg instanceof CharSequence[] ? String.join("", (CharSequence[]) arg) : String.valueOf(arg));
+        }
+        return text.append(')').toString();
+    }
+
+    private static void keep(Deque<LogEntry> buffer, LogEntry entry) {
+        if (buffer.size() == CAPACITY) {
+            buffer.poll();
+        }
+        buffer.add(entry);
+    }
+
+    private static List<String> format(Deque<LogEntry> entries, boolean withLevel) {
+        List<String> lines = new ArrayList<>(entries.size());
+        for (LogEntry entry : entries) {
+            lines.add(Instant.ofEpochMilli(entry.getTimestamp()) + " " + (withLevel ? entry.getLevel() + " " : "")
+                + entry.getMessage());
+        }
+        return lines;
+    }
+
+    private interface Capture<T> {
+        T get() throws Exception;
+    }
+
+    /**
+     * A dead or hung browser should not prevent the rest of the dump
+     */
+    private static <T> T capture(Capture<T> capture) {
+        try {
+            return capture.get();
+        } catch (Exception e) {
+            System.err.println("⚠ Flight recorder could not capture: " + e.getMessage());
+            return null;
+        }
+    }
+}
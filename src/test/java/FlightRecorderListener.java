@@ -0,0 +1,40 @@
+import org.testng.*;
+
+import java.nio.file.Path;
+
+/**
+ * Dumps the flight recorder of the current thread's session when a test fails
+ * and stores the artifact folder in the result's "flightRecording" attribute,
+ * which StreamingReporter writes to results.jsonl, the JUnit XML and the
+ * summary's failures table.
+ *
+ * This runs in afterInvocation, which TestNG calls before the @AfterMethod
+ * teardown, so the browser is still available.
+ */
+public class FlightRecorderListener implements IInvokedMethodListener, ISuiteListener {
+    public static final String RECORDING_ATTRIBUTE = "flightRecording";
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (!method.isTestMethod() || testResult.getStatus() != ITestResult.FAILURE) {
+            return;
+        }
+        String testName = testResult.getTestClass().getRealClass().getSimpleName() + "." + testResult.getName();
+        Object[] parameters = testResult.getParameters();
+        if (parameters.length > 0) {
+            testName += "-" + parameters[parameters.length - 1];
+        }
+
+        Path folder = DriverFactory.dumpFlightRecorder(testName, testResult.getThrowable());
+        if (folder != null) {
+            // Set before onTestFailure, so the streamed result carries it
+            testResult.setAttribute(RECORDING_ATTRIBUTE, folder.toString());
+            System.out.println("✓ Flight recording saved: " + folder);
+        }
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        FlightRecorder.awaitWrites();
+    }
+}
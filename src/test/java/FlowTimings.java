@@ -0,0 +1,88 @@
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Function;
+
+/**
+ * Times key user flows, such as login to dashboard, under the active
+ * {@link EmulationProfile} and fails them when they exceed the profile's
+ * threshold.
+ *
+ * Each timing is printed, stored on the test result as "flow.<name>Ms", and
+ * appended to target/flow-timings/flow-timings.csv so runs under different
+ * profiles can be compared.
+ */
+public final class FlowTimings {
+    private static final Path CSV = Paths.get("target", "flow-timings", "flow-timings.csv");
+    private static final Duration CEILING = Duration.ofSeconds(30);
+    // Polled more often than the default 500 ms so the timing is not rounded up to a poll interval
+    private static final Duration POLL = Duration.ofMillis(50);
+
+    private FlowTimings() {
+    }
+
+    /**
+     * Waits for the condition that ends a flow started at startNanos (usually
+     * right before the click that triggers it), then records and checks the
+     * flow's duration
+     */
+    public static <V> V await(WebDriver driver, String flow, long startNanos, Function<? super WebDriver, V> condition) {
+        EmulationProfile profile = EmulationProfile.active();
+        long threshold = profile.thresholdMillis(flow);
+        // Wait past the threshold, so an over-threshold flow still reports how long it took
+        Duration ceiling = profile.scale(CEILING);
+        Duration timeout = threshold > 0 ? Duration.ofMillis(Math.max(ceiling.toMillis(), threshold * 2)) : ceiling;
+        V result;
+        TraceRecorder.Span span = TraceRecorder.begin("flow." + flow, "flow").arg("profile", profile.name);
+        try {
+            result = new WebDriverWait(driver, timeout, POLL).until(condition);
+        } finally {
+            span.close();
+        }
+        long millis = (System.nanoTime() - startNanos) / 1_000_000;
+        record(profile, flow, millis, threshold);
+        if (threshold > 0 && millis > threshold) {
+            throw new AssertionError(String.format("%s took %d ms under profile %s, threshold %d ms",
+                flow, millis, profile.name, threshold));
+        }
+        return result;
+    }
+
+    private static synchronized void record(EmulationProfile profile, String flow, long millis, long threshold) {
+        String status = threshold <= 0 ? "no threshold" : millis > threshold ? "OVER" : "ok";
+        System.out.println("⏱ " + flow + ": " + millis + " ms under profile " + profile.name
+            + (threshold > 0 ? " (threshold " + threshold + " ms, " + status + ")" : ""));
+
+        ITestResult result = Reporter.getCurrentTestResult();
+        String test = "";
+        if (result != null) {
+            result.setAttribute("flow." + flow + "Ms", millis);
+            test = result.getTestClass().getRealClass().getSimpleName() + "." + result.getName();
+        }
+        try {
+            Files.createDirectories(CSV.getParent());
+            boolean header = !Files.exists(CSV);
+            try (Writer out = Files.newBufferedWriter(CSV, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                if (header) {
+                    out.write("timestamp,profile,flow,test,millis,thresholdMillis,status" + System.lineSeparator());
+                }
+                out.write(String.join(",", Instant.now().toString(), profile.name, flow, test,
+                    String.valueOf(millis), String.valueOf(threshold), status) + System.lineSeparator());
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to record flow timing: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a test method or class that needs a browser of its own and must not
+ * run in a tab of a shared browser (see {@link SharedBrowser}).
+ *
+ * Tabs of one browser share cookies and the set of window handles, so tests
+ * that log in, open or switch windows, or use frames are isolated. The value
+ * says why.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface Isolated {
+    String value();
+}
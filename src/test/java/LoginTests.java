@@ -2,24 +2,25 @@ import io.github.bonigarcia.wdm.WebDriverManager;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 import org.testng.Assert;
+import org.testng.ITestResult;
 import org.testng.annotations.*;
 
+import java.lang.reflect.Method;
 import java.time.Duration;
 
+@RequiresState(SessionState.LOGIN_PAGE)
 public class LoginTests {
-    private WebDriver driver;
-    private WebDriverWait wait;
-    private static final String BASE_URL = "https://opensource-demo.orangehrmlive.com/";
+    // Per thread, so test methods can run in parallel on one instance
+    private final ThreadLocal<WebDriver> drivers = new ThreadLocal<>();
+    private final ThreadLocal<AdaptiveWait> waits = new ThreadLocal<>();
     private static final String VALID_USERNAME = "Admin";
     private static final String VALID_PASSWORD = "admin123";
 
     @BeforeMethod
-    public void setup() {
+    public void setup(Method method) {
         // Setup ChromeDriver using WebDriverManager
         WebDriverManager.chromedriver().setup();
         
@@ -29,24 +30,25 @@ public class LoginTests {
         options.addArguments("--disable-notifications");
         options.addArguments("--disable-popup-blocking");
         
-        // Initialize WebDriver
-        driver = new ChromeDriver(options);
-        wait = new WebDriverWait(driver, Duration.ofSeconds(10));
-        
-        // Navigate to OrangeHRM
-        driver.get(BASE_URL);
+        // Initialize WebDriver (a tab of a shared browser in tab mode), already on the login page
+        WebDriver driver = DriverFactory.newDriver(options, method);
+        drivers.set(driver);
+        waits.set(new AdaptiveWait(driver, Duration.ofSeconds(10)));
     }
 
     @AfterMethod
-    public void teardown() {
-        // Close browser
-        if (driver != null) {
-            driver.quit();
-        }
+    public void teardown(ITestResult result) {
+        // Close browser, or park it for the next test that starts in the same state
+        DriverFactory.release(drivers.get(), result);
+        drivers.remove();
+        waits.remove();
     }
 
+    @Isolated("logs in; the session cookie would be shared with every tab")
     @Test(priority = 1, groups = {"Smoke", "Regression"}, description = "Verify successful login with valid credentials")
     public void testValidLogin() {
+        WebDriver driver = drivers.get();
+        AdaptiveWait wait = waits.get();
         try {
             // Wait for login page to load
             WebElement usernameField = wait.until(
@@ -60,9 +62,11 @@ public class LoginTests {
             WebElement passwordField = driver.findElement(By.name("password"));
             passwordField.sendKeys(VALID_PASSWORD);
 
-            // Click login button
+            // Click login button and time the way to the dashboard under the emulation profile
             WebElement loginButton = driver.findElement(By.cssSelector("button[type='submit']"));
+            long loginStart = System.nanoTime();
             loginButton.click();
+            FlowTimings.await(driver, "dashboard", loginStart, ExpectedConditions.urlContains("dashboard"));
 
             // Wait for dashboard to load and verify
             WebElement dashboard = wait.until(
@@ -86,6 +90,8 @@ public class LoginTests {
 
     @Test(priority = 2, groups = {"Regression"}, description = "Verify login fails with invalid credentials")
     public void testInvalidLogin() {
+        WebDriver driver = drivers.get();
+        AdaptiveWait wait = waits.get();
         try {
             // Wait for login page to load
             WebElement usernameField = wait.until(
@@ -125,6 +131,8 @@ public class LoginTests {
 
     @Test(priority = 3, groups = {"Regression"}, description = "Verify login fails with empty credentials")
     public void testEmptyCredentialsLogin() {
+        WebDriver driver = drivers.get();
+        AdaptiveWait wait = waits.get();
         try {
             // Wait for login page to load
             wait.until(ExpectedConditions.presenceOfElementLocated(By.name("username")));
@@ -0,0 +1,288 @@
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.CookieManager;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Test-data client for OrangeHRM's REST API (/web/index.php/api/v2/...).
+ *
+ * Requests are authenticated with the "orangehrm" session cookie, obtained
+ * through {@link #login} without a browser, so test data can be created in
+ * milliseconds instead of through the PIM forms. Batch operations send their
+ * requests concurrently (at most -Dapi.maxConcurrency at a time). Every
+ * employee and user account created through the client is deleted again, in
+ * one batch request each, when the client is closed.
+ */
+public class OrangeHrmApiClient implements AutoCloseable {
+    public static final String SESSION_COOKIE = "orangehrm";
+    private static final String API_PATH = "web/index.php/api/v2";
+    private static final int ESS_ROLE_ID = 2;
+    private static final Pattern LOGIN_TOKEN = Pattern.compile(":token=\"&quot;([^&]+)&quot;\"");
+    private static final Json JSON = new Json();
+    private static final String EMPLOYEE_ID_CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final String apiUrl;
+    private final String sessionCookie;
+    private final HttpClient http;
+    private final Semaphore inFlight = new Semaphore(Integer.getInteger("api.maxConcurrency", 8));
+    private final Set<Integer> createdEmployees = Collections.synchronizedSet(new LinkedHashSet<>());
+    private final Set<Integer> createdUsers = Collections.synchronizedSet(new LinkedHashSet<>());
+
+    /**
+     * Employee record as returned by the PIM API
+     */
+    public static final class Employee {
+        public final int empNumber;
+        public final String employeeId;
+        public final String firstName;
+        public final String lastName;
+
+        private Employee(int empNumber, String employeeId, String firstName, String lastName) {
+            this.empNumber = empNumber;
+            this.employeeId = employeeId;
+            this.firstName = firstName;
+            this.lastName = lastName;
+        }
+
+        @Override
+        public String toString() {
+            return firstName + " " + lastName + " (empNumber " + empNumber + ")";
+        }
+    }
+
+    public OrangeHrmApiClient(String baseUrl, String sessionCookie) {
+        this.apiUrl = (baseUrl.endsWith("/") ? baseUrl : baseUrl + "/") + API_PATH;
+        this.sessionCookie = sessionCookie;
+        this.http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    }
+
+    /**
+     * Logs in through the login form without a browser, for setup that runs
+     * before any test has a session
+     */
+    public static OrangeHrmApiClient login(String baseUrl, String username, String password) {
+        String root = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        CookieManager cookies = new CookieManager();
+        HttpClient http = HttpClient.newBuilder()
+            .cookieHandler(cookies)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+        try {
+            String loginPage = http.send(HttpRequest.newBuilder(URI.create(root + "web/index.php/auth/login")).build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+            Matcher token = LOGIN_TOKEN.matcher(loginPage);
+            if (!token.find()) {
+                throw new IllegalStateException("No CSRF token on the login page");
+            }
+            String form = "_token=" + encode(token.group(1)) + "&username=" + encode(username)
+                + "&password=" + encode(password);
+            HttpResponse<String> response = http.send(
+                HttpRequest.newBuilder(URI.create(root + "web/index.php/auth/validate"))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form))
+                    .build(),
+                HttpResponse.BodyHandlers.ofString());
+            String location = response.headers().firstValue("Location").orElse("");
+            if (location.contains("auth/login")) {
+                throw new IllegalStateException("Login rejected for user " + username);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Login request failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during login", e);
+        }
+        for (HttpCookie cookie : cookies.getCookieStore().getCookies()) {
+            if (cookie.getName().equals(SESSION_COOKIE)) {
+                return new OrangeHrmApiClient(root, cookie.getValue());
+            }
+        }
+        throw new IllegalStateException("Login did not return a '" + SESSION_COOKIE + "' cookie");
+    }
+
+    public Employee createEmployee(String firstName, String lastName) {
+        return createEmployees(Collections.singletonList(new String[] {firstName, lastName})).get(0);
+    }
+
+    /**
+     * Creates employees concurrently; each entry is {firstName, lastName}
+     */
+    public List<Employee> createEmployees(List<String[]> names) {
+        List<CompletableFuture<Employee>> requests = new ArrayList<>();
+        for (String[] name : names) {
+            String employeeId = nextEmployeeId();
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("firstName", name[0]);
+            body.put("middleName", "");
+            body.put("lastName", name[1]);
+            body.put("employeeId", employeeId);
+            requests.add(send("POST", "/pim/employees", body).thenApply(data -> {
+                int empNumber = ((Number) data.get("empNumber")).intValue();
+                createdEmployees.add(empNumber);
+                return new Employee(empNumber, employeeId, name[0], name[1]);
+            }));
+        }
+        return joinAll(requests);
+    }
+
+    /**
+     * Renames employees concurrently; each value is {firstName, lastName}
+     */
+    public void updateEmployees(Map<Integer, String[]> namesByEmpNumber) {
+        List<CompletableFuture<Map<String, Object>>> requests = new ArrayList<>();
+        namesByEmpNumber.forEach((empNumber, name) -> {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("firstName", name[0]);
+            body.put("middleName", "");
+            body.put("lastName", name[1]);
+            requests.add(send("PUT", "/pim/employees/" + empNumber + "/personal-details", body));
+        });
+        joinAll(requests);
+    }
+
+    /**
+     * Deletes employees with a single batch request
+     */
+    public void deleteEmployees(Collection<Integer> empNumbers) {
+        if (empNumbers.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = new ArrayList<>(empNumbers);
+        joinAll(List.of(send("DELETE", "/pim/employees", Map.of("ids", ids))));
+        createdEmployees.removeAll(ids);
+    }
+
+    /**
+     * Creates an ESS user account for an employee and returns the user ID
+     */
+    public int createUser(int empNumber, String username, String password) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("username", username);
+        body.put("password", password);
+        body.put("status", true);
+        body.put("userRoleId", ESS_ROLE_ID);
+        body.put("empNumber", empNumber);
+        int userId = ((Number) joinAll(List.of(send("POST", "/admin/users", body))).get(0).get("id")).intValue();
+        createdUsers.add(userId);
+        return userId;
+    }
+
+    /**
+     * Deletes user accounts with a single batch request
+     */
+    public void deleteUsers(Collection<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = new ArrayList<>(userIds);
+        joinAll(List.of(send("DELETE", "/admin/users", Map.of("ids", ids))));
+        createdUsers.removeAll(ids);
+    }
+
+    /**
+     * Deletes every user and employee this client created and has not deleted yet
+     */
+    @Override
+    public void close() {
+        List<Integer> users;
+        synchronized (createdUsers) {
+            users = new ArrayList<>(createdUsers);
+        }
+        try {
+            deleteUsers(users);
+        } catch (RuntimeException e) {
+            System.err.println("⚠ Failed to clean up test users " + users + ": " + e.getMessage());
+        }
+
+        List<Integer> remaining;
+        synchronized (createdEmployees) {
+            remaining = new ArrayList<>(createdEmployees);
+        }
+        try {
+            deleteEmployees(remaining);
+        } catch (RuntimeException e) {
+            System.err.println("⚠ Failed to clean up test employees " + remaining + ": " + e.getMessage());
+        }
+    }
+
+    private CompletableFuture<Map<String, Object>> send(String method, String path, Map<String, Object> body) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(apiUrl + path))
+            .timeout(Duration.ofSeconds(30))
+            .header("Content-Type", "application/json")
+            .header("Accept", "application/json")
+            .header("Cookie", SESSION_COOKIE + "=" + sessionCookie)
+            .method(method, HttpRequest.BodyPublishers.ofString(JSON.toJson(body)))
+            .build();
+
+        inFlight.acquireUninterruptibly();
+        CompletableFuture<HttpResponse<String>> sent;
+        try {
+            sent = http.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+        return sent
+            .whenComplete((done, error) -> inFlight.release())
+            .thenApply(response -> {
+                if (response.statusCode() / 100 != 2) {
+                    throw new IllegalStateException(method + " " + path + " returned " + response.statusCode()
+                        + ": " + response.body());
+                }
+                Map<String, Object> json = JSON.toType(response.body(), Json.MAP_TYPE);
+                Object data = json.get("data");
+                @SuppressWarnings("unchecked")
+                Map<String, Object> result = data instanceof Map ? (Map<String, Object>) data : json;
+                return result;
+            });
+    }
+
+    private static <T> List<T> joinAll(List<CompletableFuture<T>> requests) {
+        try {
+            CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        List<T> results = new ArrayList<>();
+        for (CompletableFuture<T> request : requests) {
+            results.add(request.join());
+        }
+        return results;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Employee IDs are limited to 10 characters in OrangeHRM. A random suffix
+     * of 9 base-36 characters keeps IDs unique across runs on the shared demo.
+     */
+    private static String nextEmployeeId() {
+        StringBuilder id = new StringBuilder("T");
+        for (int i = 0; i < 9; i++) {
+            id.append(EMPLOYEE_ID_CHARS.charAt(RANDOM.nextInt(EMPLOYEE_ID_CHARS.length())));
+        }
+        return id.toString();
+    }
+}
@@ -0,0 +1,112 @@
+import org.testng.Assert;
+import org.testng.annotations.*;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Tests for OrangeHrmApiClient against {@link OrangeHrmApiStub}, a local stub
+ * of the PIM endpoints, so they run without a browser or the demo site.
+ */
+public class OrangeHrmApiClientTests {
+    private static final String API_PATH = OrangeHrmApiStub.API_PATH + "/pim/employees";
+
+    private OrangeHrmApiStub stub;
+    private String baseUrl;
+    private Queue<String> requests;
+    private Queue<String> cookies;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        stub = new OrangeHrmApiStub();
+        baseUrl = stub.baseUrl();
+        requests = stub.requests();
+        cookies = stub.cookies();
+    }
+
+    @AfterMethod
+    public void teardown() {
+        if (stub != null) {
+            stub.close();
+        }
+    }
+
+    @Test(priority = 1, groups = {"Api"}, description = "Verify employees are created in a concurrent batch with the session cookie")
+    public void testCreateEmployeesBatch() {
+        OrangeHrmApiClient api = new OrangeHrmApiClient(baseUrl, "session-123");
+
+        List<String[]> names = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            names.add(new String[] {"First" + i, "Last" + i});
+        }
+        List<OrangeHrmApiClient.Employee> employees = api.createEmployees(names);
+
+        Assert.assertEquals(employees.size(), 10, "All employees should be created");
+        Set<Integer> empNumbers = new HashSet<>();
+        for (int i = 0; i < employees.size(); i++) {
+            Assert.assertEquals(employees.get(i).firstName, "First" + i, "Results should keep request order");
+            Assert.assertTrue(employees.get(i).employeeId.length() <= 10, "Employee ID must fit OrangeHRM's limit");
+            empNumbers.add(employees.get(i).empNumber);
+        }
+        Assert.assertEquals(empNumbers.size(), 10, "Each employee should get its own empNumber");
+        Assert.assertTrue(cookies.stream().allMatch(cookie -> cookie.equals("orangehrm=session-123")),
+            "Every request should carry the session cookie");
+
+        System.out.println("✓ Created " + employees.size() + " employees through the API stub");
+    }
+
+    @Test(priority = 2, groups = {"Api"}, description = "Verify employees are renamed through personal-details")
+    public void testUpdateEmployees() {
+        OrangeHrmApiClient api = new OrangeHrmApiClient(baseUrl, "session-123");
+
+        api.updateEmployees(Map.of(7, new String[] {"Renamed", "Employee"}));
+
+        String request = requests.poll();
+        Assert.assertNotNull(request, "An update request should be sent");
+        Assert.assertTrue(request.startsWith("PUT " + API_PATH + "/7/personal-details"),
+            "Update should target the personal-details endpoint. Actual: " + request);
+        Assert.assertTrue(request.contains("\"firstName\": \"Renamed\"") || request.contains("\"firstName\":\"Renamed\""),
+            "Update should send the new first name. Actual: " + request);
+
+        System.out.println("✓ Employee update sent to personal-details");
+    }
+
+    @Test(priority = 3, groups = {"Api"}, description = "Verify close() deletes created employees in one batch")
+    public void testCloseDeletesCreatedEmployees() {
+        OrangeHrmApiClient api = new OrangeHrmApiClient(baseUrl, "session-123");
+        List<OrangeHrmApiClient.Employee> employees = api.createEmployees(List.of(
+            new String[] {"A", "One"}, new String[] {"B", "Two"}, new String[] {"C", "Three"}));
+        requests.clear();
+
+        api.close();
+
+        Assert.assertEquals(requests.size(), 1, "Cleanup should be a single batch request");
+        String request = requests.poll();
+        Assert.assertTrue(request.startsWith("DELETE " + API_PATH), "Cleanup should delete employees. Actual: " + request);
+        for (OrangeHrmApiClient.Employee employee : employees) {
+            Assert.assertTrue(request.contains(String.valueOf(employee.empNumber)),
+                "Cleanup should include empNumber " + employee.empNumber);
+        }
+
+        // Nothing is left to delete on a second close
+        api.close();
+        Assert.assertTrue(requests.isEmpty(), "Second close should not send requests");
+
+        System.out.println("✓ Created employees cleaned up on close");
+    }
+
+    @Test(priority = 4, groups = {"Api"}, description = "Verify API errors are reported with status and body")
+    public void testErrorStatusIsReported() {
+        OrangeHrmApiClient api = new OrangeHrmApiClient(baseUrl, "expired");
+        stub.fail("", 401);
+
+        try {
+            api.createEmployee("No", "Session");
+            Assert.fail("Creating an employee without a valid session should fail");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains("401"), "Error should include the status. Actual: " + e.getMessage());
+        }
+
+        System.out.println("✓ API error surfaced as exception");
+    }
+}
@@ -0,0 +1,117 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stub of OrangeHRM's PIM employee and admin user endpoints, shared by
+ * the API client and lease pool tests so they run without a browser or the
+ * demo site.
+ *
+ * Every request is recorded as "METHOD path body". POST answers with the
+ * request plus a new empNumber (employees) or id (users), DELETE with the
+ * deleted ids and anything else with the request itself.
+ */
+public final class OrangeHrmApiStub implements AutoCloseable {
+    public static final String API_PATH = "/web/index.php/api/v2";
+    private static final Json JSON = new Json();
+
+    private final HttpServer server;
+    private final Queue<String> requests = new ConcurrentLinkedQueue<>();
+    private final Queue<String> cookies = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger nextId = new AtomicInteger(100);
+    private volatile String failingPath = "";
+    private volatile int failingStatus;
+    // Holds back personal-details resets while a test inspects the pool
+    private volatile CountDownLatch resetGate = new CountDownLatch(0);
+
+    public OrangeHrmApiStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext(API_PATH, this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    public Queue<String> requests() {
+        return requests;
+    }
+
+    public Queue<String> cookies() {
+        return cookies;
+    }
+
+    /**
+     * Number of recorded requests starting with the prefix, e.g. "POST /web/index.php/api/v2/admin/users"
+     */
+    public long count(String prefix) {
+        return requests.stream().filter(request -> request.startsWith(prefix)).count();
+    }
+
+    /**
+     * Answers requests whose path ends with the suffix ("" for all) with the status
+     */
+    public void fail(String pathSuffix, int status) {
+        failingPath = pathSuffix;
+        failingStatus = status;
+    }
+
+    /**
+     * Personal-details requests wait until the returned latch is counted down
+     */
+    public CountDownLatch holdResets() {
+        resetGate = new CountDownLatch(1);
+        return resetGate;
+    }
+
+    @Override
+    public void close() {
+        resetGate.countDown();
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        String path = exchange.getRequestURI().getPath();
+        if (path.endsWith("/personal-details")) {
+            try {
+                resetGate.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        requests.add(exchange.getRequestMethod() + " " + path + " " + body);
+        cookies.add(String.valueOf(exchange.getRequestHeaders().getFirst("Cookie")));
+
+        int status = failingStatus != 0 && path.endsWith(failingPath) ? failingStatus : 200;
+        Object data;
+        Map<String, Object> request = JSON.toType(body, Json.MAP_TYPE);
+        if (exchange.getRequestMethod().equals("POST")) {
+            Map<String, Object> created = new LinkedHashMap<>(request);
+            created.put(path.endsWith("/pim/employees") ? "empNumber" : "id", nextId.getAndIncrement());
+            data = created;
+        } else if (exchange.getRequestMethod().equals("DELETE")) {
+            data = request.get("ids");
+        } else {
+            data = request;
+        }
+
+        byte[] response = JSON.toJson(Map.of("data", data, "meta", List.of())).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+}
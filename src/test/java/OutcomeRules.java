@@ -0,0 +1,39 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Expected-result oracle declared as an ordered list of rules.
+ *
+ * Generated test rows carry no expected value of their own; instead the first
+ * rule whose condition matches a row decides the expected outcome, and a
+ * default applies when nothing matches.
+ */
+public final class OutcomeRules {
+    private final List<Predicate<Map<String, Object>>> conditions = new ArrayList<>();
+    private final List<String> outcomes = new ArrayList<>();
+    private final String defaultOutcome;
+
+    public OutcomeRules(String defaultOutcome) {
+        this.defaultOutcome = defaultOutcome;
+    }
+
+    /**
+     * Adds a rule; rules are evaluated in the order they were added
+     */
+    public OutcomeRules when(Predicate<Map<String, Object>> condition, String outcome) {
+        conditions.add(condition);
+        outcomes.add(outcome);
+        return this;
+    }
+
+    public String expectedFor(Map<String, Object> row) {
+        for (int i = 0; i < conditions.size(); i++) {
+            if (conditions.get(i).test(row)) {
+                return outcomes.get(i);
+            }
+        }
+        return defaultOutcome;
+    }
+}
@@ -0,0 +1,249 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Samples memory, CPU and open file handles of one session's process tree
+ * (chromedriver and every Chrome process below it) from /proc.
+ *
+ * The last few samples are kept so sessions whose memory keeps growing across
+ * tests can be flagged, and sessions over the recycle threshold can be replaced by
+ * whoever holds on to them. All monitored trees are remembered so any process
+ * still alive when the suite exits can be killed.
+ *
+ *   -DprocessMonitor.recycleMb=1500    RSS above which a session should be recycled
+ *   -DprocessMonitor.leakSamples=3     consecutive growing samples that count as a leak
+ *   -DprocessMonitor.leakMb=50         minimum growth over those samples to be flagged
+ */
+public final class ProcessMonitor {
+    private static final Path PROC = Paths.get("/proc");
+    private static final long RECYCLE_KB = Long.getLong("processMonitor.recycleMb", 1500L) * 1024;
+    private static final int LEAK_SAMPLES = Integer.getInteger("processMonitor.leakSamples", 3);
+    private static final long LEAK_KB = Long.getLong("processMonitor.leakMb", 50L) * 1024;
+    private static final long CLOCK_TICKS_PER_SECOND = clockTicksPerSecond();
+    private static final Set<ProcessMonitor> MONITORS = ConcurrentHashMap.newKeySet();
+
+    private final ProcessHandle root;
+    // Only the last LEAK_SAMPLES are needed, however many tests reuse the session
+    private final Deque<Sample> samples = new ArrayDeque<>();
+    private double totalCpuSeconds;
+
+    static {
+        // Also clean up when the suite never reaches its onFinish, e.g. on Ctrl+C
+        Runtime.getRuntime().addShutdownHook(new Thread(ProcessMonitor::killLeakedProcesses, "process-monitor-cleanup"));
+    }
+
+    /**
+     * Resource usage of a whole process tree at one point in time; CPU is the
+     * time used since the previous sample of the same session
+     */
+    public static final class Sample {
+        public final int processes;
+        public final long rssKb;
+        public final double cpuSeconds;
+        public final int openHandles;
+
+        private Sample(int processes, long rssKb, double cpuSeconds, int openHandles) {
+            this.processes = processes;
+            this.rssKb = rssKb;
+            this.cpuSeconds = cpuSeconds;
+            this.openHandles = openHandles;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d processes, %d MB RSS, %.1f s CPU, %d handles",
+                processes, rssKb / 1024, cpuSeconds, openHandles);
+        }
+    }
+
+    /**
+     * Unit of the utime/stime fields in /proc/<pid>/stat, from getconf CLK_TCK;
+     * 100 if it cannot be read
+     */
+    private static long clockTicksPerSecond() {
+        try {
+            Process getconf = new ProcessBuilder("getconf", "CLK_TCK").redirectErrorStream(true).start();
+            String output = new String(getconf.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            if (getconf.waitFor() == 0) {
+                long ticks = Long.parseLong(output);
+                if (ticks > 0) {
+                    return ticks;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not available, e.g. outside Linux
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 100;
+    }
+
+    private ProcessMonitor(ProcessHandle root) {
+        this.root = root;
+    }
+
+    /**
+     * Starts monitoring the chromedriver listening on the given port. Returns
+     * null where /proc is unavailable or the process cannot be found.
+     */
+    public static ProcessMonitor forChromeDriver(int port) {
+        if (!Files.isDirectory(PROC)) {
+            return null;
+        }
+        String portArgument = "--port=" + port;
+        Optional<ProcessHandle> driver = ProcessHandle.current().children()
+            .filter(process -> process.info().arguments()
+                .map(args -> List.of(args).contains(portArgument))
+                .orElse(false))
+            .findFirst();
+        if (driver.isEmpty()) {
+            return null;
+        }
+        ProcessMonitor monitor = new ProcessMonitor(driver.get());
+        MONITORS.add(monitor);
+        return monitor;
+    }
+
+    public long pid() {
+        return root.pid();
+    }
+
+    /**
+     * Reads the current usage of the tree and adds it to this session's recent history
+     */
+    public synchronized Sample sample() {
+        List<ProcessHandle> tree = Stream.concat(Stream.of(root), root.descendants())
+            .filter(ProcessHandle::isAlive)
+            .collect(Collectors.toList());
+        long rssKb = 0;
+        long ticks = 0;
+        int handles = 0;
+        for (ProcessHandle process : tree) {
+            Path dir = PROC.resolve(String.valueOf(process.pid()));
+            rssKb += readRssKb(dir);
+            ticks += readCpuTicks(dir);
+            handles += countHandles(dir);
+        }
+        // CPU counters are cumulative over the session's life; report only this test's share
+        double cpuSeconds = (double) ticks / CLOCK_TICKS_PER_SECOND;
+        double cpuSinceLast = Math.max(0, cpuSeconds - totalCpuSeconds);
+        totalCpuSeconds = cpuSeconds;
+        Sample sample = new Sample(tree.size(), rssKb, cpuSinceLast, handles);
+        samples.addLast(sample);
+        while (samples.size() > LEAK_SAMPLES) {
+            samples.removeFirst();
+        }
+        return sample;
+    }
+
+    /**
+     * True when the last few samples each grew and the total growth is significant
+     */
+    public synchronized boolean isLeaking() {
+        if (samples.size() < LEAK_SAMPLES) {
+            return false;
+        }
+        List<Sample> recent = new ArrayList<>(samples);
+        for (int i = 1; i < recent.size(); i++) {
+            if (recent.get(i).rssKb <= recent.get(i - 1).rssKb) {
+                return false;
+            }
+        }
+        return recent.get(recent.size() - 1).rssKb - recent.get(0).rssKb >= LEAK_KB;
+    }
+
+    public synchronized boolean needsRecycle() {
+        return !samples.isEmpty() && samples.getLast().rssKb >= RECYCLE_KB;
+    }
+
+    /**
+     * Stops tracking a session after quit, unless part of its tree survived
+     */
+    public void release() {
+        if (!root.isAlive() && root.descendants().noneMatch(ProcessHandle::isAlive)) {
+            MONITORS.remove(this);
+        }
+    }
+
+    /**
+     * Kills whatever is left of every monitored tree, plus any chrome or
+     * chromedriver process still parented to this JVM. Returns the number of
+     * processes killed.
+     */
+    public static int killLeakedProcesses() {
+        List<ProcessHandle> leaked = new ArrayList<>();
+        for (ProcessMonitor monitor : MONITORS) {
+            monitor.root.descendants().forEach(leaked::add);
+            leaked.add(monitor.root);
+        }
+        ProcessHandle.current().descendants()
+            .filter(process -> process.info().command().map(ProcessMonitor::isChrome).orElse(false))
+            .forEach(leaked::add);
+
+        int killed = 0;
+        for (ProcessHandle process : leaked.stream().distinct().collect(Collectors.toList())) {
+            if (process.isAlive() && process.destroyForcibly()) {
+                killed++;
+            }
+        }
+        MONITORS.clear();
+        return killed;
+    }
+
+    private static boolean isChrome(String command) {
+        String name = Paths.get(command).getFileName().toString().toLowerCase();
+        return name.startsWith("chrome") || name.startsWith("google-chrome");
+    }
+
+    private static long readRssKb(Path dir) {
+        for (String line : readLines(dir.resolve("status"))) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("[^0-9]", ""));
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * utime + stime from /proc/[pid]/stat; the command name may contain spaces,
+     * so fields are counted from the closing parenthesis
+     */
+    private static long readCpuTicks(Path dir) {
+        List<String> lines = readLines(dir.resolve("stat"));
+        if (lines.isEmpty()) {
+            return 0;
+        }
+        String stat = lines.get(0);
+        String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+        return Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+    }
+
+    private static int countHandles(Path dir) {
+        try (Stream<Path> fds = Files.list(dir.resolve("fd"))) {
+            return (int) fds.count();
+        } catch (IOException | SecurityException e) {
+            return 0;
+        }
+    }
+
+    private static List<String> readLines(Path file) {
+        try {
+            return Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            // The process exited between listing and reading
+            return List.of();
+        }
+    }
+}
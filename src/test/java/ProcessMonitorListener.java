@@ -0,0 +1,43 @@
+import org.testng.*;
+
+/**
+ * Samples the browser process tree after every test, warns about sessions
+ * whose memory keeps growing, and quits shared and parked browsers and
+ * kills leaked browser processes when the suite finishes.
+ */
+public class ProcessMonitorListener implements IInvokedMethodListener, ISuiteListener {
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (!method.isTestMethod()) {
+            return;
+        }
+        ProcessMonitor monitor = DriverFactory.currentProcessMonitor();
+        if (monitor == null) {
+            return;
+        }
+        ProcessMonitor.Sample sample = monitor.sample();
+        testResult.setAttribute("browserRssKb", sample.rssKb);
+        testResult.setAttribute("browserCpuSeconds", sample.cpuSeconds);
+        testResult.setAttribute("browserOpenHandles", sample.openHandles);
+        ConcurrencyGovernor.recordFootprint(sample.rssKb);
+        System.out.println("  Browser resources (pid " + monitor.pid() + "): " + sample);
+
+        if (monitor.isLeaking()) {
+            System.out.println("⚠ Browser memory keeps growing across tests in session " + monitor.pid());
+        }
+        if (monitor.needsRecycle()) {
+            System.out.println("⚠ Session " + monitor.pid() + " is over the recycle threshold");
+        }
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        // Shared and parked browsers stay up between tests; quit them before anything still alive counts as leaked
+        DriverFactory.quitIdleBrowsers();
+        int killed = ProcessMonitor.killLeakedProcesses();
+        if (killed > 0) {
+            System.out.println("⚠ Killed " + killed + " leaked chrome/chromedriver processes");
+        }
+    }
+}
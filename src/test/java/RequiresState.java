@@ -0,0 +1,16 @@
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the session state a test method, or every test of a class, starts
+ * in. {@link DriverFactory} establishes the state before the test runs, and
+ * {@link StateScheduler} orders tests so that consecutive ones need the same
+ * state and can carry it forward on a reused session instead of rebuilding it.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface RequiresState {
+    SessionState value();
+}
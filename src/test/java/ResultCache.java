@@ -0,0 +1,343 @@
+import org.testng.ITestNGMethod;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Remembers recent passes by a content hash, so a test or DataProvider row
+ * whose inputs have not changed since it last passed can be reported as a
+ * cached pass instead of being run again (see {@link ResultCacheListener}).
+ *
+ * The key hashes the bytecode of the test class and of every test source
+ * class it refers to, directly or through other test classes (nested
+ * classes, DriverFactory, SessionState, AdaptiveWait, OutcomeRules, ...), the
+ * files under the test inputs directory (data files, emulation profiles), the
+ * method, the DataProvider row, the active {@link EmulationProfile} and, for
+ * classes that drive a browser through DriverFactory, the target app's build
+ * identifier, read once per run from the login page. Tests that never touch
+ * the app, such as the API client tests against a local stub, do not wait for
+ * that request. Without a build identifier, for example when the app cannot
+ * be reached, browser tests are neither served from nor written to the cache.
+ *
+ *   -Dcache.enabled=false              run and record nothing through the cache
+ *   -Dcache.force=true                 run every test, still recording passes
+ *   -Dcache.maxAgeHours=24             passes older than this are not reused
+ *   -Dcache.appUrl=https://opensource-demo.orangehrmlive.com/
+ *   -Dcache.inputs=test-resources      files whose content is part of every key
+ *   -Dcache.file=.cache/result-cache.properties
+ */
+public final class ResultCache {
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("cache.enabled", "true"));
+    private static final boolean FORCE = Boolean.getBoolean("cache.force");
+    private static final long MAX_AGE_MILLIS = Long.getLong("cache.maxAgeHours", 24L) * 3_600_000;
+    private static final String APP_URL = System.getProperty("cache.appUrl",
+        "https://opensource-demo.orangehrmlive.com/");
+    private static final Path FILE = Paths.get(System.getProperty("cache.file",
+        ".cache" + File.separator + "result-cache.properties"));
+    // "OrangeHRM OS 5.7" in the footer, or the build timestamp OrangeHRM appends to its assets
+    private static final Pattern VERSION = Pattern.compile("OrangeHRM OS ([0-9.]+)");
+    private static final Pattern ASSET_BUILD = Pattern.compile("\\.(?:js|css)\\?v=([0-9]+)");
+    private static final Path INPUTS = Paths.get(System.getProperty("cache.inputs", "test-resources"));
+    private static final Map<Class<?>, Set<String>> REFERENCED_CLASSES = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, String> BYTECODE_HASHES = new ConcurrentHashMap<>();
+    private static final String BROWSER_CLASS = "DriverFactory";
+
+    // Key → "<passed at epoch millis> <duration ms>"
+    private static final Properties PASSES = new Properties();
+    private static String appBuild;
+    private static boolean appBuildResolved;
+    private static String inputsHash;
+    private static long hits;
+    private static long misses;
+    private static long recorded;
+    private static long savedMillis;
+
+    static {
+        if (ENABLED) {
+            load();
+            Runtime.getRuntime().addShutdownHook(new Thread(ResultCache::save, "result-cache-save"));
+        }
+    }
+
+    private ResultCache() {
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Key of one invocation of a test method with the given DataProvider row
+     * (empty for plain tests), or null when it drives a browser and the app
+     * build is unknown
+     */
+    public static String key(ITestNGMethod method, Object[] row) {
+        Class<?> testClass = method.getRealClass();
+        String build = drivesBrowser(testClass) ? appBuild() : "no browser";
+        if (build == null) {
+            return null;
+        }
+        return sha256(String.join("\n",
+            bytecodeHash(testClass),
+            inputsHash(),
+            testClass.getName() + "." + method.getMethodName(),
+            Arrays.deepToString(row),
+            EmulationProfile.active().name,
+            build).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * When the key last passed, if that pass may stand in for running the
+     * test again; null otherwise. Counts a hit or a miss.
+     */
+    public static synchronized Instant lookup(String key) {
+        String pass = FORCE ? null : PASSES.getProperty(key);
+        if (pass != null) {
+            try {
+                String[] fields = pass.split(" ");
+                long passedAt = Long.parseLong(fields[0]);
+                if (System.currentTimeMillis() - passedAt <= MAX_AGE_MILLIS) {
+                    hits++;
+                    savedMillis += Long.parseLong(fields[1]);
+                    return Instant.ofEpochMilli(passedAt);
+                }
+            } catch (RuntimeException e) {
+                // A hand-edited or truncated entry is a miss
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    public static synchronized void recordPass(String key, long durationMillis) {
+        PASSES.setProperty(key, System.currentTimeMillis() + " " + durationMillis);
+        recorded++;
+    }
+
+    public static synchronized void recordFailure(String key) {
+        PASSES.remove(key);
+    }
+
+    public static synchronized String statistics() {
+        long lookups = hits + misses;
+        return String.format("Result cache: %d of %d tests served from cache (%.0f%%), ~%.1f s of test time saved, "
+                + "%d passes recorded%s",
+            hits, lookups, lookups == 0 ? 0.0 : 100.0 * hits / lookups, savedMillis / 1000.0, recorded,
+            FORCE ? " (forced run)" : !appBuildResolved ? ""
+                : appBuild == null ? " (app build unknown, browser tests not cached)" : ", app build " + appBuild);
+    }
+
+    /**
+     * Build identifier of the target app, read once per run; null when the
+     * app cannot be reached or shows none
+     */
+    public static synchronized String appBuild() {
+        if (!appBuildResolved) {
+            appBuildResolved = true;
+            appBuild = readAppBuild();
+            if (appBuild == null) {
+                System.out.println("⚠ No build identifier found at " + APP_URL + ", browser tests not cached");
+            }
+        }
+        return appBuild;
+    }
+
+    private static String readAppBuild() {
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(APP_URL))
+            .timeout(Duration.ofSeconds(15))
+            .GET()
+            .build();
+        try {
+            String page = http.send(request, HttpResponse.BodyHandlers.ofString()).body();
+            Matcher version = VERSION.matcher(page);
+            Matcher assets = ASSET_BUILD.matcher(page);
+            String build = (version.find() ? version.group(1) : "") + (assets.find() ? "+" + assets.group(1) : "");
+            return build.isEmpty() ? null : build;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static String bytecodeHash(Class<?> type) {
+        return BYTECODE_HASHES.computeIfAbsent(type, t -> {
+            StringBuilder hashes = new StringBuilder();
+            for (String name : referencedClasses(t)) {
+                hashes.append(name).append('=').append(sha256(bytecode(t.getClassLoader(), name))).append('\n');
+            }
+            return sha256(hashes.toString().getBytes(StandardCharsets.UTF_8));
+        });
+    }
+
+    private static boolean drivesBrowser(Class<?> type) {
+        return referencedClasses(type).contains(BROWSER_CLASS);
+    }
+
+    /**
+     * Internal names of the class and of every class next to it on the class
+     * path that it refers to, directly or through one another. A reference
+     * puts the class name in the referring class's constant pool; a name that
+     * merely contains another only adds a class to the key.
+     */
+    private static Set<String> referencedClasses(Class<?> type) {
+        return REFERENCED_CLASSES.computeIfAbsent(type, t -> {
+            String own = t.getName().replace('.', '/');
+            List<String> candidates = classesNextTo(t);
+            Set<String> found = new TreeSet<>();
+            Deque<String> pending = new ArrayDeque<>(List.of(own));
+            while (!pending.isEmpty()) {
+                String name = pending.poll();
+                if (!found.add(name)) {
+                    continue;
+                }
+                byte[] bytes = bytecode(t.getClassLoader(), name);
+                for (String candidate : candidates) {
+                    if (!found.contains(candidate) && contains(bytes, candidate.getBytes(StandardCharsets.UTF_8))) {
+                        pending.add(candidate);
+                    }
+                }
+            }
+            return found;
+        });
+    }
+
+    /**
+     * Internal names of the classes in the class's classes directory, or none
+     * when it was loaded from a jar
+     */
+    private static List<String> classesNextTo(Class<?> type) {
+        try {
+            Path root = Paths.get(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+            if (!Files.isDirectory(root)) {
+                return List.of();
+            }
+            try (Stream<Path> files = Files.walk(root)) {
+                return files
+                    .filter(file -> file.toString().endsWith(".class"))
+                    .map(file -> root.relativize(file).toString().replace(File.separatorChar, '/'))
+                    .map(name -> name.substring(0, name.length() - ".class".length()))
+                    .collect(Collectors.toList());
+            }
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Hash of the names and contents of the files under the inputs directory,
+     * computed once per run
+     */
+    private static synchronized String inputsHash() {
+        if (inputsHash == null) {
+            StringBuilder hashes = new StringBuilder();
+            if (Files.isDirectory(INPUTS)) {
+                try (Stream<Path> files = Files.walk(INPUTS)) {
+                    for (Path file : files.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+                        hashes.append(INPUTS.relativize(file).toString().replace(File.separatorChar, '/'))
+                            .append('=').append(sha256(Files.readAllBytes(file))).append('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot hash the test inputs in " + INPUTS, e);
+                }
+            }
+            inputsHash = sha256(hashes.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return inputsHash;
+    }
+
+    private static boolean contains(byte[] bytes, byte[] part) {
+        for (int i = 0; i + part.length <= bytes.length; i++) {
+            if (Arrays.equals(bytes, i, i + part.length, part, 0, part.length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] bytecode(ClassLoader loader, String internalName) {
+        try (InputStream in = loader.getResourceAsStream(internalName + ".class")) {
+            if (in == null) {
+                throw new IllegalStateException("Bytecode of " + internalName + " not found");
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read bytecode of " + internalName, e);
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void load() {
+        if (!Files.exists(FILE)) {
+            return;
+        }
+        try (Reader in = Files.newBufferedReader(FILE, StandardCharsets.UTF_8)) {
+            PASSES.load(in);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Failed to load result cache: " + e.getMessage());
+        }
+    }
+
+    private static synchronized void save() {
+        // Expired passes can never be served again
+        long now = System.currentTimeMillis();
+        PASSES.entrySet().removeIf(entry -> {
+            try {
+                return now - Long.parseLong(String.valueOf(entry.getValue()).split(" ")[0]) > MAX_AGE_MILLIS;
+            } catch (NumberFormatException e) {
+                return true;
+            }
+        });
+        try {
+            Files.createDirectories(FILE.toAbsolutePath().getParent());
+            try (Writer out = Files.newBufferedWriter(FILE, StandardCharsets.UTF_8)) {
+                PASSES.store(out, "Recent passes by content hash: <passed at epoch millis> <duration ms>");
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to save result cache: " + e.getMessage());
+        }
+    }
+}
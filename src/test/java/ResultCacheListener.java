@@ -0,0 +1,187 @@
+import org.testng.IConfigurable;
+import org.testng.IConfigureCallBack;
+import org.testng.IConfigurationListener;
+import org.testng.IHookCallBack;
+import org.testng.IHookable;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+
+import java.lang.reflect.InvocationTargetException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reports tests whose {@link ResultCache} key matches a recent pass as cached
+ * passes instead of running them, and records new passes.
+ *
+ * The decision is taken before @BeforeMethod, so a cached test starts no
+ * browser: its setup, body and teardown are skipped and it is reported as
+ * passed with the "cachedPassAt" attribute, which StreamingReporter turns into
+ * the CACHED_PASS status. The row of a DataProvider test is only known once
+ * the test itself is invoked, so its setup is held back until then and run
+ * just before the body if the row is not cached; a setup that fails there
+ * skips the row, as a failed @BeforeMethod would. Hit statistics are printed
+ * when the suite finishes.
+ */
+public class ResultCacheListener implements IConfigurationListener, IConfigurable, IHookable, ITestListener,
+        ISuiteListener {
+    public static final String CACHED_ATTRIBUTE = "cachedPassAt";
+
+    // Test method whose @BeforeMethod is about to run on this thread
+    private final ThreadLocal<ITestNGMethod> upcoming = new ThreadLocal<>();
+    // Pass that stands in for the upcoming test, decided in its @BeforeMethod
+    private final ThreadLocal<Instant> cachedPass = new ThreadLocal<>();
+    private final ThreadLocal<Boolean> lookedUp = new ThreadLocal<>();
+    // Setups of the upcoming DataProvider row, held back until its row is known
+    private final ThreadLocal<List<DeferredSetup>> deferredSetups = new ThreadLocal<>();
+    private final ThreadLocal<Boolean> skipTeardown = new ThreadLocal<>();
+    private final ThreadLocal<String> runningKey = new ThreadLocal<>();
+
+    @Override
+    public void beforeConfiguration(ITestResult result, ITestNGMethod testMethod) {
+        if (result.getMethod().isBeforeMethodConfiguration()) {
+            upcoming.set(testMethod);
+        }
+    }
+
+    @Override
+    public void run(IConfigureCallBack callBack, ITestResult result) {
+        if (ResultCache.isEnabled() && result.getMethod().isBeforeMethodConfiguration()) {
+            skipTeardown.remove();
+            lookedUp.remove();
+            ITestNGMethod testMethod = upcoming.get();
+            if (testMethod != null && testMethod.isDataDriven()) {
+                List<DeferredSetup> setups = deferredSetups.get();
+                if (setups == null) {
+                    setups = new ArrayList<>();
+                    deferredSetups.set(setups);
+                }
+                setups.add(new DeferredSetup(callBack, result));
+                result.setStatus(ITestResult.SUCCESS);
+                return;
+            }
+            String key = testMethod == null ? null : ResultCache.key(testMethod, new Object[0]);
+            if (key != null) {
+                lookedUp.set(Boolean.TRUE);
+                Instant passedAt = ResultCache.lookup(key);
+                if (passedAt != null) {
+                    cachedPass.set(passedAt);
+                    result.setStatus(ITestResult.SUCCESS);
+                    return;
+                }
+            }
+        }
+        if (result.getMethod().isAfterMethodConfiguration() && skipTeardown.get() != null) {
+            result.setStatus(ITestResult.SUCCESS);
+            return;
+        }
+        callBack.runConfigurationMethod(result);
+    }
+
+    @Override
+    public void run(IHookCallBack callBack, ITestResult result) {
+        if (!ResultCache.isEnabled()) {
+            callBack.runTestMethod(result);
+            return;
+        }
+        Instant passedAt = cachedPass.get();
+        boolean decided = lookedUp.get() != null;
+        List<DeferredSetup> setups = deferredSetups.get();
+        cachedPass.remove();
+        lookedUp.remove();
+        deferredSetups.remove();
+        String key = ResultCache.key(result.getMethod(), result.getParameters());
+        if (!decided && key != null) {
+            // A DataProvider row, or a test without setup: its key is known only now
+            passedAt = ResultCache.lookup(key);
+        }
+        if (passedAt != null) {
+            if (decided || setups != null) {
+                // The setup was skipped, so there is nothing to tear down
+                skipTeardown.set(Boolean.TRUE);
+            }
+            result.setAttribute(CACHED_ATTRIBUTE, passedAt.toString());
+            result.setStatus(ITestResult.SUCCESS);
+            System.out.println("⚡ Cached pass: " + result.getTestClass().getRealClass().getSimpleName() + "."
+                + result.getName() + (result.getParameters().length > 0
+                    ? " [" + result.getParameters()[result.getParameters().length - 1] + "]" : "")
+                + " (passed " + passedAt + ")");
+            return;
+        }
+        if (setups != null) {
+            for (DeferredSetup setup : setups) {
+                Throwable failure = setup.run();
+                if (failure != null) {
+                    skipTeardown.set(Boolean.TRUE);
+                    result.setThrowable(failure);
+                    result.setStatus(ITestResult.SKIP);
+                    return;
+                }
+            }
+        }
+        runningKey.set(key);
+        callBack.runTestMethod(result);
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        String key = runningKey.get();
+        runningKey.remove();
+        if (key != null) {
+            ResultCache.recordPass(key, Math.max(0, result.getEndMillis() - result.getStartMillis()));
+        }
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        String key = runningKey.get();
+        runningKey.remove();
+        if (key != null) {
+            ResultCache.recordFailure(key);
+        }
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        runningKey.remove();
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (ResultCache.isEnabled()) {
+            System.out.println(ResultCache.statistics());
+        }
+    }
+
+    /**
+     * A @BeforeMethod of a DataProvider test, run once its row is known
+     */
+    private static final class DeferredSetup {
+        private final IConfigureCallBack callBack;
+        private final ITestResult result;
+
+        DeferredSetup(IConfigureCallBack callBack, ITestResult result) {
+            this.callBack = callBack;
+            this.result = result;
+        }
+
+        /**
+         * Runs the setup and returns what it threw, or null
+         */
+        Throwable run() {
+            callBack.runConfigurationMethod(result);
+            Throwable failure = result.getThrowable();
+            if (failure instanceof InvocationTargetException && failure.getCause() != null) {
+                failure = failure.getCause();
+            }
+            if (failure != null) {
+                result.setStatus(ITestResult.FAILURE);
+            }
+            return failure;
+        }
+    }
+}
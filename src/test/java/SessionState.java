@@ -0,0 +1,67 @@
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+
+import java.time.Duration;
+
+/**
+ * Starting states a test can require with {@link RequiresState}.
+ *
+ * A state is established on a fresh session, or carried forward from the
+ * state a reused session was last established in: the dashboard stays logged
+ * in, and anything else first drops the cookies an earlier test may have left.
+ */
+public enum SessionState {
+    /** Logged out, on the login page */
+    LOGIN_PAGE {
+        @Override
+        boolean establish(WebDriver driver, SessionState carried) {
+            if (carried != null) {
+                driver.manage().deleteAllCookies();
+            }
+            driver.get(BASE_URL);
+            waitFor(driver).until(ExpectedConditions.presenceOfElementLocated(By.name("username")));
+            return false;
+        }
+    },
+
+    /** Logged in as Admin, on the dashboard */
+    ADMIN_DASHBOARD {
+        @Override
+        boolean establish(WebDriver driver, SessionState carried) {
+            if (carried != null && carried != ADMIN_DASHBOARD) {
+                // Tests starting on the login page may have logged in as another user
+                driver.manage().deleteAllCookies();
+            }
+            AdaptiveWait wait = waitFor(driver);
+            // Redirects to the login page unless the session is still logged in
+            driver.get(BASE_URL + "web/index.php/dashboard/index");
+            wait.until(ExpectedConditions.or(
+                ExpectedConditions.urlContains("dashboard"),
+                ExpectedConditions.presenceOfElementLocated(By.name("username"))));
+            if (driver.getCurrentUrl().contains("dashboard")) {
+                return false;
+            }
+            wait.until(ExpectedConditions.presenceOfElementLocated(By.name("username"))).sendKeys(ADMIN_USERNAME);
+            driver.findElement(By.name("password")).sendKeys(ADMIN_PASSWORD);
+            driver.findElement(By.cssSelector("button[type='submit']")).click();
+            wait.until(ExpectedConditions.urlContains("dashboard"));
+            return true;
+        }
+    };
+
+    private static final String BASE_URL = "https://opensource-demo.orangehrmlive.com/";
+    private static final String ADMIN_USERNAME = "Admin";
+    private static final String ADMIN_PASSWORD = "admin123";
+
+    /**
+     * Brings the driver into this state. carried is the state the session was
+     * last established in, or null for a new session. Returns true if a login
+     * was needed.
+     */
+    abstract boolean establish(WebDriver driver, SessionState carried);
+
+    private static AdaptiveWait waitFor(WebDriver driver) {
+        return new AdaptiveWait(driver, Duration.ofSeconds(15));
+    }
+}
@@ -0,0 +1,262 @@
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WindowType;
+import org.openqa.selenium.WrapsElement;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One Chrome session that hosts several tests at once, each in its own tab.
+ *
+ * A test gets a proxy WebDriver bound to its tab. Every call through the
+ * proxy, and through any element, navigation or option object it returns,
+ * takes the browser's lock and switches to the tab first if another tab was
+ * active, so each test only ever sees its own page. Commands of different tabs
+ * are serialized; tests overlap while they wait, sleep or assert. Closing or
+ * quitting the proxy blanks the tab and keeps it for the next test instead of
+ * closing it.
+ */
+public final class SharedBrowser {
+    private final WebDriver driver;
+    // Fair, so a tab waiting on a long page load in another tab gets the next turn
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Deque<String> idleTabs = new ArrayDeque<>();
+    private int openTabs;
+    private String focused;
+
+    public SharedBrowser(WebDriver driver) {
+        this.driver = driver;
+        this.focused = driver.getWindowHandle();
+        idleTabs.add(focused);
+    }
+
+    /**
+     * The session's own driver, for the factory; tests use tab proxies
+     */
+    public WebDriver driver() {
+        return driver;
+    }
+
+    /**
+     * Number of tabs leased to tests, including reservations
+     */
+    public synchronized int openTabs() {
+        return openTabs;
+    }
+
+    /**
+     * Counts a tab before it is opened, so concurrent schedulers see it
+     */
+    public synchronized void reserveTab() {
+        openTabs++;
+    }
+
+    /**
+     * Opens (or reuses) a tab for a test that already reserved one
+     */
+    public WebDriver openTab() {
+        String handle = inLock(() -> {
+            String idle = idleTabs.poll();
+            if (idle != null) {
+                return idle;
+            }
+            driver.switchTo().newWindow(WindowType.TAB);
+            focused = driver.getWindowHandle();
+            return focused;
+        });
+        return (WebDriver) proxy(driver, handle);
+    }
+
+    /**
+     * Returns the browser a tab proxy belongs to, or null for any other driver
+     */
+    public static SharedBrowser browserOf(WebDriver driver) {
+        TabHandler handler = handlerOf(driver);
+        return handler == null ? null : handler.browser;
+    }
+
+    /**
+     * Runs an action on the session's own driver with the given tab in front
+     */
+    public <T> T inTab(WebDriver tab, Callable<T> action) {
+        String handle = handlerOf(tab).handle;
+        return inLock(() -> {
+            focus(handle);
+            return action.call();
+        });
+    }
+
+    private void closeTab(String handle) {
+        inLock(() -> {
+            focus(handle);
+            driver.get("about:blank");
+            idleTabs.add(handle);
+            return null;
+        });
+        synchronized (this) {
+            openTabs--;
+        }
+    }
+
+    private void focus(String handle) {
+        if (!handle.equals(focused)) {
+            driver.switchTo().window(handle);
+            focused = handle;
+        }
+    }
+
+    private <T> T inLock(Callable<T> action) {
+        lock.lock();
+        try {
+            return action.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Object proxy(Object target, String handle) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            for (Class<?> candidate : type.getInterfaces()) {
+                if (Modifier.isPublic(candidate.getModifiers())) {
+                    interfaces.add(candidate);
+                }
+            }
+        }
+        if (target instanceof WebElement) {
+            // Lets Selenium's JSON encoding reach the real element when it is passed back as an argument
+            interfaces.add(WrapsElement.class);
+        }
+        return Proxy.newProxyInstance(SharedBrowser.class.getClassLoader(), interfaces.toArray(new Class<?>[0]),
+            new TabHandler(this, handle, target));
+    }
+
+    private static TabHandler handlerOf(Object object) {
+        if (object != null && Proxy.isProxyClass(object.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(object);
+            if (handler instanceof TabHandler) {
+                return (TabHandler) handler;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isSeleniumType(Object value) {
+        for (Class<?> type = value.getClass(); type != null; type = type.getSuperclass()) {
+            for (Class<?> candidate : type.getInterfaces()) {
+                if (candidate.getName().startsWith("org.openqa.selenium.")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Forwards calls to the driver, or to an object obtained through it, with
+     * the owning tab in front
+     */
+    private static final class TabHandler implements InvocationHandler {
+        private final SharedBrowser browser;
+        private final String handle;
+        private final Object target;
+
+        private TabHandler(SharedBrowser browser, String handle, Object target) {
+            this.browser = browser;
+            this.handle = handle;
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (method.getDeclaringClass() == Object.class) {
+                switch (name) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return "Tab " + handle + " of " + target;
+                }
+            }
+            if (target == browser.driver) {
+                if (name.equals("quit") || name.equals("close")) {
+                    browser.closeTab(handle);
+                    return null;
+                }
+                if (name.equals("getWindowHandle")) {
+                    return handle;
+                }
+            }
+            if (name.equals("getWrappedElement") && target instanceof WebElement) {
+                return target;
+            }
+
+            Object[] unwrapped = unwrap(args);
+            Object result;
+            try {
+                result = browser.inLock(() -> {
+                    browser.focus(handle);
+                    try {
+                        return method.invoke(target, unwrapped);
+                    } finally {
+                        if (target instanceof WebDriver.TargetLocator
+                                && (name.equals("window") || name.equals("newWindow"))) {
+                            // The test moved to another window; refocus its own tab on the next call
+                            browser.focused = null;
+                        }
+                    }
+                });
+            } catch (IllegalStateException e) {
+                if (e.getCause() instanceof InvocationTargetException) {
+                    throw e.getCause().getCause();
+                }
+                throw e;
+            }
+            return wrap(result);
+        }
+
+        private Object wrap(Object value) {
+            if (value instanceof List) {
+                List<Object> wrapped = new ArrayList<>();
+                for (Object item : (List<?>) value) {
+                    wrapped.add(wrap(item));
+                }
+                return wrapped;
+            }
+            if (value == null || value instanceof Collection || value instanceof Map || !isSeleniumType(value)) {
+                return value;
+            }
+            return browser.proxy(value, handle);
+        }
+
+        private static Object[] unwrap(Object[] args) {
+            if (args == null) {
+                return null;
+            }
+            Object[] unwrapped = args.clone();
+            for (int i = 0; i < unwrapped.length; i++) {
+                TabHandler handler = handlerOf(unwrapped[i]);
+                if (handler != null) {
+                    unwrapped[i] = handler.target;
+                } else if (unwrapped[i] instanceof Object[]) {
+                    // Varargs such as executeScript(script, element)
+                    unwrapped[i] = unwrap((Object[]) unwrapped[i]);
+                }
+            }
+            return unwrapped;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+import org.testng.IAlterSuiteListener;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Orders the tests of each &lt;test&gt; by the {@link RequiresState} they start
+ * in, so consecutive tests on a worker need the same state, and reports how
+ * many rebuilds the reuse of sessions avoided.
+ *
+ * Tests keep their priority order within a state group; groups follow the
+ * order in which their first test would have run, and each class's tests
+ * without a declared state stay together in their declared order. The new
+ * order is written back as priorities and preserve-order is turned off, since
+ * TestNG otherwise runs class by class; a &lt;test&gt; without any
+ * {@code @RequiresState} keeps its order. After a passing test its session is
+ * parked by {@link DriverFactory} and handed to the next test with a declared state,
+ * which then only has to carry the state forward: the browser start is
+ * avoided, and on the dashboard the login as well.
+ *
+ *   -Dscheduler.enabled=false          keep TestNG's order and quit every session after its test
+ */
+public class StateScheduler implements IAlterSuiteListener, IMethodInterceptor, ISuiteListener {
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("scheduler.enabled", "true"));
+
+    private static long sessionsStarted;
+    private static long sessionsReused;
+    private static long logins;
+    private static long loginsAvoided;
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Records how a test's required state was established
+     */
+    public static synchronized void recordEstablished(SessionState state, boolean reused, boolean loggedIn) {
+        if (reused) {
+            sessionsReused++;
+        } else {
+            sessionsStarted++;
+        }
+        if (loggedIn) {
+            logins++;
+        } else if (state == SessionState.ADMIN_DASHBOARD) {
+            loginsAvoided++;
+        }
+    }
+
+    public static synchronized String statistics() {
+        return String.format("State scheduler: %d tests with a required state, %d browser starts and %d logins "
+                + "avoided (%d sessions started, %d logins)",
+            sessionsStarted + sessionsReused, sessionsReused, loginsAvoided, sessionsStarted, logins);
+    }
+
+    /**
+     * Starting state declared on the method or its class, or null
+     */
+    public static SessionState requiredState(Method method) {
+        if (method == null) {
+            return null;
+        }
+        RequiresState requires = method.getAnnotation(RequiresState.class);
+        if (requires == null) {
+            requires = method.getDeclaringClass().getAnnotation(RequiresState.class);
+        }
+        return requires == null ? null : requires.value();
+    }
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        if (!ENABLED) {
+            return;
+        }
+        for (XmlSuite suite : suites) {
+            for (XmlTest test : suite.getTests()) {
+                if (test.getXmlClasses().stream().anyMatch(c -> declaresState(c.getSupportClass()))) {
+                    test.setPreserveOrder(false);
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        if (!ENABLED || methods.size() < 2 || methods.stream().allMatch(m -> stateOf(m.getMethod()) == null)) {
+            return methods;
+        }
+        List<IMethodInstance> byPriority = new ArrayList<>(methods);
+        byPriority.sort(Comparator.comparingInt(m -> m.getMethod().getPriority()));
+
+        // Tests without a state are grouped by their class, so such classes are not interleaved
+        Map<Object, List<IMethodInstance>> groups = new LinkedHashMap<>();
+        for (IMethodInstance method : byPriority) {
+            SessionState state = stateOf(method.getMethod());
+            Object group = state != null ? state : method.getMethod().getRealClass();
+            groups.computeIfAbsent(group, g -> new ArrayList<>()).add(method);
+        }
+        List<IMethodInstance> ordered = new ArrayList<>();
+        groups.values().forEach(ordered::addAll);
+        for (int i = 0; i < ordered.size(); i++) {
+            ordered.get(i).getMethod().setPriority(i);
+        }
+
+        if (groups.size() > 1) {
+            System.out.println("⇅ State scheduler: " + context.getName() + " - " + ordered.size() + " tests in "
+                + groups.size() + " groups " + groups.keySet().stream().map(StateScheduler::groupName).collect(Collectors.toList())
+                + ", state changes " + stateChanges(byPriority)
+                + " → " + stateChanges(ordered));
+        }
+        return ordered;
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (ENABLED) {
+            System.out.println(statistics());
+        }
+    }
+
+    private static boolean declaresState(Class<?> testClass) {
+        if (testClass == null) {
+            return false;
+        }
+        if (testClass.isAnnotationPresent(RequiresState.class)) {
+            return true;
+        }
+        for (Method method : testClass.getMethods()) {
+            if (method.isAnnotationPresent(RequiresState.class)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String groupName(Object group) {
+        return group instanceof Class ? ((Class<?>) group).getSimpleName() : group.toString();
+    }
+
+    private static SessionState stateOf(ITestNGMethod method) {
+        return requiredState(method.getConstructorOrMethod().getMethod());
+    }
+
+    private static int stateChanges(List<IMethodInstance> methods) {
+        int changes = 0;
+        for (int i = 1; i < methods.size(); i++) {
+            if (stateOf(methods.get(i).getMethod()) != stateOf(methods.get(i - 1).getMethod())) {
+                changes++;
+            }
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,180 @@
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Builds an HTML summary from the results.jsonl written by StreamingReporter.
+ *
+ * The file is read twice, line by line: the first pass aggregates totals,
+ * per-class counts and the slowest tests, the second copies failures straight
+ * into the page. Memory depends on the number of classes, not results. Lines
+ * cut off by a killed run are skipped, so the summary can also be built by
+ * hand from a partial run:
+ *
+ *   java -cp target/test-classes:<test classpath> StreamingReportSummary target/stream-report/results.jsonl
+ */
+public final class StreamingReportSummary {
+    private static final Json JSON = new Json();
+    private static final int SLOWEST = 20;
+
+    private StreamingReportSummary() {
+    }
+
+    /**
+     * Pass, fail and skip counts and total time of one class
+     */
+    private static final class Counts {
+        long passed;
+        long cached;
+        long failed;
+        long skipped;
+        long millis;
+
+        void add(String status, long duration) {
+            if (status.equals("PASS")) {
+                passed++;
+            } else if (status.equals("CACHED_PASS")) {
+                passed++;
+                cached++;
+            } else if (status.equals("FAIL")) {
+                failed++;
+            } else {
+                skipped++;
+            }
+            millis += duration;
+        }
+
+        long total() {
+            return passed + failed + skipped;
+        }
+    }
+
+    public static void main(String[] args) {
+        Path jsonl = Paths.get(args.length > 0 ? args[0] : StreamingReporter.JSONL.toString());
+        Path html = write(jsonl, jsonl.resolveSibling("summary.html"));
+        System.out.println("✓ Summary written to " + html.toAbsolutePath());
+    }
+
+    public static Path write(Path jsonl, Path html) {
+        Counts totals = new Counts();
+        Map<String, Counts> byClass = new TreeMap<>();
+        // Min-heap on duration holding the slowest results seen so far
+        PriorityQueue<Map<String, Object>> slowest = new PriorityQueue<>(
+            Comparator.comparingLong(StreamingReportSummary::duration));
+        long[] window = {Long.MAX_VALUE, Long.MIN_VALUE};
+        long[] unreadable = {0};
+
+        forEachResult(jsonl, unreadable, result -> {
+            String status = String.valueOf(result.get("status"));
+            long duration = duration(result);
+            totals.add(status, duration);
+            byClass.computeIfAbsent(String.valueOf(result.get("class")), name -> new Counts()).add(status, duration);
+            long start = ((Number) result.get("start")).longValue();
+            window[0] = Math.min(window[0], start);
+            window[1] = Math.max(window[1], start + duration);
+            slowest.add(result);
+            if (slowest.size() > SLOWEST) {
+                slowest.poll();
+            }
+        });
+
+        try (BufferedWriter out = Files.newBufferedWriter(html, StandardCharsets.UTF_8)) {
+            out.write("<!DOCTYPE html>\n<html><head><meta charset=\"UTF-8\"><title>Test summary</title>\n"
+                + "<style>body{font-family:sans-serif}table{border-collapse:collapse}"
+                + "td,th{border:1px solid #ccc;padding:2px 8px;text-align:left}"
+                + ".FAIL{color:#c00}.SKIP{color:#a60}</style></head><body>\n");
+            out.write(String.format(Locale.ROOT, "<h1>Test summary</h1>\n<p>%d tests: %d passed (%d cached), %d failed, "
+                    + "%d skipped. Test time %.1f s, wall time %.1f s.%s</p>\n",
+                totals.total(), totals.passed, totals.cached, totals.failed, totals.skipped, totals.millis / 1000.0,
+                totals.total() == 0 ? 0.0 : (window[1] - window[0]) / 1000.0,
+                unreadable[0] > 0 ? " " + unreadable[0] + " unreadable lines skipped (partial run?)." : ""));
+
+            out.write("<h2>Classes</h2>\n<table><tr><th>Class</th><th>Tests</th><th>Passed</th>"
+                + "<th>Failed</th><th>Skipped</th><th>Time (s)</th></tr>\n");
+            for (Map.Entry<String, Counts> entry : byClass.entrySet()) {
+                Counts counts = entry.getValue();
+                out.write(String.format(Locale.ROOT, "<tr><td>%s</td><td>%d</td><td>%d</td><td class=\"%s\">%d</td>"
+                        + "<td>%d</td><td>%.1f</td></tr>\n",
+                    StreamingReporter.text(entry.getKey()), counts.total(), counts.passed,
+                    counts.failed > 0 ? "FAIL" : "", counts.failed, counts.skipped, counts.millis / 1000.0));
+            }
+            out.write("</table>\n");
+
+            out.write("<h2>Slowest tests</h2>\n<table><tr><th>Test</th><th>Status</th><th>Time (s)</th></tr>\n");
+            List<Map<String, Object>> ranked = new ArrayList<>(slowest);
+            ranked.sort(Comparator.comparingLong(StreamingReportSummary::duration).reversed());
+            for (Map<String, Object> result : ranked) {
+                out.write(String.format(Locale.ROOT, "<tr><td>%s</td><td class=\"%2$s\">%2$s</td><td>%3$.1f</td></tr>\n",
+                    StreamingReporter.text(name(result)), result.get("status"), duration(result) / 1000.0));
+            }
+            out.write("</table>\n");
+
+            out.write("<h2>Failures</h2>\n<table><tr><th>Test</th><th>Error</th><th>Artifacts</th></tr>\n");
+            forEachResult(jsonl, new long[1], result -> {
+                if (!"FAIL".equals(result.get("status"))) {
+                    return;
+                }
+                Object recording = result.get("attributes") instanceof Map
+                    ? ((Map<?, ?>) result.get("attributes")).get(FlightRecorderListener.RECORDING_ATTRIBUTE) : null;
+                try {
+                    out.write(String.format(Locale.ROOT, "<tr><td>%s</td><td><pre>%s</pre></td><td>%s</td></tr>\n",
+                        StreamingReporter.text(name(result)),
+                        StreamingReporter.text(String.valueOf(result.get("error"))),
+                        recording != null ? "<a href=\"" + Paths.get(recording.toString()).toUri() + "\">"
+                            + "flight recording</a>" : ""));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.write("</table>\n</body></html>\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + html, e);
+        }
+        return html;
+    }
+
+    private static void forEachResult(Path jsonl, long[] unreadable, Consumer<Map<String, Object>> action) {
+        if (!Files.exists(jsonl)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(jsonl, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Map<String, Object> result;
+                try {
+                    result = JSON.toType(line, Json.MAP_TYPE);
+                } catch (JsonException | ClassCastException e) {
+                    // Torn last line of a killed run
+                    unreadable[0]++;
+                    continue;
+                }
+                action.accept(result);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + jsonl, e);
+        }
+    }
+
+    private static long duration(Map<String, Object> result) {
+        return ((Number) result.get("durationMs")).longValue();
+    }
+
+    private static String name(Map<String, Object> result) {
+        String className = String.valueOf(result.get("class"));
+        return className.substring(className.lastIndexOf('.') + 1) + "." + result.get("method")
+            + (result.get("row") != null ? "[" + result.get("row") + "]" : "");
+    }
+}
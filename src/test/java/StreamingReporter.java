@@ -0,0 +1,296 @@
+import org.testng.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes every test result to disk the moment it completes, as one JSON line
+ * in results.jsonl and one testcase in a JUnit XML file per suite.
+ *
+ * Nothing is kept in memory but counters, so footprint does not grow with the
+ * number of DataProvider rows. The JUnit file is well-formed after every
+ * result: each testcase is written over the closing tag together with a new
+ * closing tag, in one write. The counts go into space reserved in the
+ * testsuite tag when the suite finishes, so a run killed halfway leaves a
+ * readable partial report whose header carries no counts rather than wrong
+ * ones. summary.html is built from results.jsonl when a suite finishes (see
+ * StreamingReportSummary).
+ * Tests served from the {@link ResultCache} have the CACHED_PASS status.
+ * The folder a {@link FlightRecorderListener} dumped a failure to is kept
+ * with the result, and linked from the summary's failures.
+ *
+ *   -Dreport.dir=target/stream-report   output directory
+ *   -Dreport.fsync=interval             none, interval or always
+ *   -Dreport.fsyncMillis=1000           interval between fsyncs
+ *   -Dreport.releaseResults=false       drop passed results from TestNG's own
+ *                                       in-memory maps once written (breaks dependsOnMethods)
+ */
+public class StreamingReporter implements ITestListener, ISuiteListener {
+    static final Path DIR = Paths.get(System.getProperty("report.dir", "target" + File.separator + "stream-report"));
+    static final Path JSONL = DIR.resolve("results.jsonl");
+    private static final String FSYNC = System.getProperty("report.fsync", "interval");
+    private static final long FSYNC_NANOS = Long.getLong("report.fsyncMillis", 1000L) * 1_000_000;
+    private static final boolean RELEASE_RESULTS = Boolean.getBoolean("report.releaseResults");
+    private static final byte[] TAIL = "</testsuite>\n".getBytes(StandardCharsets.UTF_8);
+
+    private FileChannel jsonl;
+    private boolean jsonlStarted;
+    private long lastSyncNanos = System.nanoTime();
+    private final Map<ISuite, JUnitFile> junitFiles = new IdentityHashMap<>();
+
+    /**
+     * JUnit XML file of one suite, kept well-formed after every append
+     */
+    private static final class JUnitFile {
+        private final FileChannel channel;
+        private final String suiteName;
+        private final String timestamp = Instant.now().toString();
+        private long tests;
+        private long failures;
+        private long errors;
+        private long skipped;
+        private double seconds;
+
+        private JUnitFile(Path file, String suiteName) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+            this.suiteName = suiteName;
+            byte[] header = header(false);
+            channel.write(ByteBuffer.allocate(header.length + TAIL.length).put(header).put(TAIL).flip());
+        }
+
+        /**
+         * Counts are zero-padded so the header never changes length; until
+         * the suite finishes their place is filled with spaces
+         */
+        private byte[] header(boolean withCounts) {
+            String counts = String.format(Locale.ROOT,
+                " tests=\"%010d\" failures=\"%010d\" errors=\"%010d\" skipped=\"%010d\" time=\"%015.3f\"",
+                tests, failures, errors, skipped, seconds);
+            return String.format(Locale.ROOT, "<?xml version=\"1.0\" encoding=\"UTF-8\"?>%n"
+                    + "<testsuite name=%s timestamp=\"%s\"%s>%n",
+                attribute(suiteName), timestamp, withCounts ? counts : " ".repeat(counts.length()))
+                .getBytes(StandardCharsets.UTF_8);
+        }
+
+        private void append(String testcase) throws IOException {
+            long end = channel.size() - TAIL.length;
+            byte[] body = testcase.getBytes(StandardCharsets.UTF_8);
+            channel.write(ByteBuffer.allocate(body.length + TAIL.length).put(body).put(TAIL).flip(), end);
+        }
+
+        private void finish() throws IOException {
+            channel.write(ByteBuffer.wrap(header(true)), 0);
+            channel.force(true);
+            channel.close();
+        }
+    }
+
+    @Override
+    public synchronized void onStart(ISuite suite) {
+        try {
+            Files.createDirectories(DIR);
+            if (jsonl == null) {
+                // Later suites of the same run append to what the first one started
+                jsonl = FileChannel.open(JSONL, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    jsonlStarted ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+                jsonlStarted = true;
+            }
+            String fileName = "TEST-" + suite.getName().replaceAll("[^A-Za-z0-9._-]", "_") + ".xml";
+            junitFiles.put(suite, new JUnitFile(DIR.resolve(fileName), suite.getName()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create streaming report in " + DIR, e);
+        }
+    }
+
+    @Override
+    public synchronized void onFinish(ISuite suite) {
+        JUnitFile junit = junitFiles.remove(suite);
+        try {
+            if (junit != null) {
+                junit.finish();
+            }
+            if (jsonl != null && junitFiles.isEmpty()) {
+                // Only once no other suite is still writing to it
+                jsonl.force(true);
+                jsonl.close();
+                jsonl = null;
+            }
+        } catch (IOException e) {
+            System.err.println("⚠ Failed to close streaming report: " + e.getMessage());
+        }
+        Path summary = StreamingReportSummary.write(JSONL, DIR.resolve("summary.html"));
+        System.out.println("✓ Streaming report written to " + summary.toAbsolutePath());
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        write(result, result.getAttribute(ResultCacheListener.CACHED_ATTRIBUTE) != null ? "CACHED_PASS" : "PASS");
+        if (RELEASE_RESULTS) {
+            result.getTestContext().getPassedTests().removeResult(result);
+        }
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        write(result, "FAIL");
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        write(result, "SKIP");
+    }
+
+    @Override
+    public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
+        write(result, "PASS");
+    }
+
+    private synchronized void write(ITestResult result, String status) {
+        JUnitFile junit = junitFiles.get(result.getTestContext().getSuite());
+        if (jsonl == null || junit == null) {
+            return;
+        }
+        String className = result.getTestClass().getRealClass().getName();
+        Object[] parameters = result.getParameters();
+        String row = parameters.length > 0 ? String.valueOf(parameters[parameters.length - 1]) : null;
+        long millis = Math.max(0, result.getEndMillis() - result.getStartMillis());
+        Throwable failure = result.getThrowable();
+
+        try {
+            jsonl.write(ByteBuffer.wrap(jsonLine(result, className, row, status, millis, failure)
+                .getBytes(StandardCharsets.UTF_8)));
+
+            junit.tests++;
+            junit.seconds += millis / 1000.0;
+            boolean assertion = failure instanceof AssertionError;
+            if (status.equals("FAIL")) {
+                if (assertion) {
+                    junit.failures++;
+                } else {
+                    junit.errors++;
+                }
+            } else if (status.equals("SKIP")) {
+                junit.skipped++;
+            }
+            Object recording = result.getAttribute(FlightRecorderListener.RECORDING_ATTRIBUTE);
+            junit.append(testcase(result.getName() + (row != null ? "[" + row + "]" : ""), className, millis,
+                status, failure, recording));
+
+            syncIfDue(junit.channel);
+        } catch (IOException e) {
+            System.err.println("⚠ Failed to stream result of " + result.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private void syncIfDue(FileChannel junit) throws IOException {
+        long now = System.nanoTime();
+        if (FSYNC.equals("always") || (FSYNC.equals("interval") && now - lastSyncNanos >= FSYNC_NANOS)) {
+            jsonl.force(false);
+            junit.force(false);
+            lastSyncNanos = now;
+        }
+    }
+
+    private static String jsonLine(ITestResult result, String className, String row, String status, long millis,
+                                   Throwable failure) {
+        StringBuilder line = new StringBuilder("{")
+            .append("\"suite\":").append(TraceRecorder.quote(result.getTestContext().getSuite().getName()))
+            .append(",\"test\":").append(TraceRecorder.quote(result.getTestContext().getName()))
+            .append(",\"class\":").append(TraceRecorder.quote(className))
+            .append(",\"method\":").append(TraceRecorder.quote(result.getName()))
+            .append(",\"row\":").append(row != null ? TraceRecorder.quote(row) : "null")
+            .append(",\"status\":").append(TraceRecorder.quote(status))
+            .append(",\"start\":").append(result.getStartMillis())
+            .append(",\"durationMs\":").append(millis)
+            .append(",\"thread\":").append(TraceRecorder.quote(Thread.currentThread().getName()));
+        if (failure != null) {
+            line.append(",\"error\":").append(TraceRecorder.quote(String.valueOf(failure)));
+        }
+        line.append(",\"attributes\":{");
+        String separator = "";
+        for (String name : result.getAttributeNames()) {
+            Object value = result.getAttribute(name);
+            line.append(separator).append(TraceRecorder.quote(name)).append(':')
+                .append(isJsonLiteral(value) ? value.toString() : TraceRecorder.quote(String.valueOf(value)));
+            separator = ",";
+        }
+        return line.append("}}\n").toString();
+    }
+
+    /**
+     * JSON has no NaN or Infinity, so those are written as strings
+     */
+    private static boolean isJsonLiteral(Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            return Double.isFinite(((Number) value).doubleValue());
+        }
+        return value instanceof Number || value instanceof Boolean;
+    }
+
+    private static String testcase(String name, String className, long millis, String status, Throwable failure,
+                                   Object recording) {
+        StringBuilder xml = new StringBuilder(String.format(Locale.ROOT, "  <testcase name=%s classname=%s time=\"%.3f\"",
+            attribute(name), attribute(className), millis / 1000.0));
+        if (status.equals("SKIP")) {
+            xml.append(">\n    <skipped/>\n  </testcase>\n");
+        } else if (status.equals("CACHED_PASS")) {
+            // JUnit XML has no cached status; it is a pass with a note
+            xml.append(">\n    <system-out>cached pass, not run</system-out>\n  </testcase>\n");
+        } else if (status.equals("FAIL")) {
+            StringWriter trace = new StringWriter();
+            if (failure != null) {
+                failure.printStackTrace(new PrintWriter(trace));
+            }
+            xml.append(">\n    <").append(failure instanceof AssertionError ? "failure" : "error")
+                .append(" message=").append(attribute(failure != null ? String.valueOf(failure.getMessage()) : ""))
+                .append(" type=").append(attribute(failure != null ? failure.getClass().getName() : ""))
+                .append(">").append(text(trace.toString()))
+                .append("</").append(failure instanceof AssertionError ? "failure" : "error").append(">\n");
+            if (recording != null) {
+                xml.append("    <system-out>").append(text("Flight recording: " + recording)).append("</system-out>\n");
+            }
+            xml.append("  </testcase>\n");
+        } else {
+            xml.append("/>\n");
+        }
+        return xml.toString();
+    }
+
+    private static String attribute(String value) {
+        return "\"" + text(value).replace("\"", "&quot;") + "\"";
+    }
+
+    /**
+     * Escapes markup and drops characters XML 1.0 cannot contain
+     */
+    static String text(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '&') {
+                escaped.append("&amp;");
+            } else if (c == '<') {
+                escaped.append("&lt;");
+            } else if (c == '>') {
+                escaped.append("&gt;");
+            } else if (c >= 0x20 || c == '\n' || c == '\r' || c == '\t') {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
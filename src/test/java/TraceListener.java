@@ -0,0 +1,89 @@
+import org.testng.*;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * TestNG listener that feeds suite, class, DataProvider, configuration and
+ * test method spans into the {@link TraceRecorder}.
+ *
+ * Registered for every run through the surefire "listener" property in pom.xml.
+ */
+public class TraceListener implements ISuiteListener, IClassListener, IDataProviderListener, IInvokedMethodListener {
+    private static final int MAX_ARG_LENGTH = 80;
+
+    private final Map<Object, Long> starts = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final Map<Object, Thread> threads = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    @Override
+    public void onStart(ISuite suite) {
+        begin(suite);
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        end(suite, suite.getName(), "suite", null);
+        TraceRecorder.close();
+    }
+
+    @Override
+    public void onBeforeClass(ITestClass testClass) {
+        begin(testClass);
+    }
+
+    @Override
+    public void onAfterClass(ITestClass testClass) {
+        end(testClass, testClass.getRealClass().getSimpleName(), "class", null);
+    }
+
+    @Override
+    public void beforeDataProviderExecution(IDataProviderMethod dataProviderMethod, ITestNGMethod method,
+                                            ITestContext context) {
+        begin(method);
+    }
+
+    @Override
+    public void afterDataProviderExecution(IDataProviderMethod dataProviderMethod, ITestNGMethod method,
+                                           ITestContext context) {
+        end(method, "dataProvider:" + dataProviderMethod.getName(), "dataprovider", null);
+    }
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        begin(testResult);
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        ITestNGMethod testMethod = method.getTestMethod();
+        String name = testMethod.getRealClass().getSimpleName() + "." + testMethod.getMethodName();
+        String category = method.isTestMethod() ? "test" : "config";
+        String args = null;
+        if (method.isTestMethod() && testResult.getParameters().length > 0) {
+            args = TraceRecorder.quote("row") + ":" + TraceRecorder.quote(describe(testResult.getParameters()));
+        }
+        end(testResult, name, category, args);
+    }
+
+    private void begin(Object key) {
+        starts.put(key, TraceRecorder.now());
+        threads.put(key, Thread.currentThread());
+    }
+
+    private void end(Object key, String name, String category, String args) {
+        Long start = starts.remove(key);
+        Thread thread = threads.remove(key);
+        if (start != null) {
+            TraceRecorder.complete(name, category, start, TraceRecorder.now() - start, thread, args);
+        }
+    }
+
+    /**
+     * DataProvider rows pass their row ID as the last parameter
+     */
+    private static String describe(Object[] parameters) {
+        String row = String.valueOf(parameters[parameters.length - 1]);
+        return row.length() > MAX_ARG_LENGTH ? row.substring(0, MAX_ARG_LENGTH) + "…" : row;
+    }
+}
@@ -0,0 +1,193 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records suite execution as Chrome Trace Event JSON.
+ *
+ * Spans are emitted as single "X" (complete) events, one per span, and handed
+ * to a background writer thread through a bounded queue, so test threads never
+ * touch the file. The output opens as a per-thread timeline in chrome://tracing
+ * or https://ui.perfetto.dev. Events recorded after {@link #close} are
+ * ignored, so a late span cannot reopen and truncate the finished file.
+ *
+ *   -Dtrace.enabled=false            turn tracing off
+ *   -Dtrace.file=target/trace.json   output location
+ *   -Dtrace.minDurationMicros=1000   drop driver/wait spans shorter than this
+ */
+public final class TraceRecorder {
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("trace.enabled", "true"));
+    private static final Path FILE = Paths.get(System.getProperty("trace.file",
+        "target" + File.separator + "trace" + File.separator + "suite-trace.json"));
+    private static final long MIN_DURATION_MICROS = Long.getLong("trace.minDurationMicros", 1000L);
+    private static final long ORIGIN_NANOS = System.nanoTime();
+    private static final String STOP = "";
+
+    private static final BlockingQueue<String> QUEUE = new ArrayBlockingQueue<>(65_536);
+    private static final Set<Long> NAMED_THREADS = ConcurrentHashMap.newKeySet();
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static Thread writer;
+    private static volatile boolean closed;
+
+    private TraceRecorder() {
+    }
+
+    /**
+     * A running span; closing it records the event
+     */
+    public static final class Span implements AutoCloseable {
+        private final String name;
+        private final String category;
+        private final long startMicros;
+        private String args;
+
+        private Span(String name, String category) {
+            this.name = name;
+            this.category = category;
+            this.startMicros = now();
+        }
+
+        /**
+         * Attaches a short string argument shown in the trace viewer
+         */
+        public Span arg(String key, String value) {
+            String entry = quote(key) + ":" + quote(value);
+            args = args == null ? entry : args + "," + entry;
+            return this;
+        }
+
+        @Override
+        public void close() {
+            complete(name, category, startMicros, now() - startMicros, Thread.currentThread(), args);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Microseconds since the recorder was loaded, the trace's time base
+     */
+    public static long now() {
+        return (System.nanoTime() - ORIGIN_NANOS) / 1_000;
+    }
+
+    public static Span begin(String name, String category) {
+        return new Span(name, category);
+    }
+
+    /**
+     * Records a span that started earlier, possibly on another thread's behalf
+     */
+    public static void complete(String name, String category, long startMicros, long durationMicros,
+                                Thread thread, String args) {
+        if (!ENABLED || closed || (isFineGrained(category) && durationMicros < MIN_DURATION_MICROS)) {
+            return;
+        }
+        ensureWriter();
+        long tid = thread.getId();
+        if (NAMED_THREADS.add(tid)) {
+            enqueue("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":" + tid
+                + ",\"args\":{\"name\":" + quote(thread.getName()) + "}}");
+        }
+        enqueue("{\"name\":" + quote(name) + ",\"cat\":" + quote(category) + ",\"ph\":\"X\",\"pid\":1,\"tid\":" + tid
+            + ",\"ts\":" + startMicros + ",\"dur\":" + durationMicros
+            + (args == null ? "" : ",\"args\":{" + args + "}") + "}");
+    }
+
+    /**
+     * Flushes outstanding events and closes the trace file
+     */
+    public static synchronized void close() {
+        closed = true;
+        if (writer == null) {
+            return;
+        }
+        try {
+            QUEUE.put(STOP);
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+        NAMED_THREADS.clear();
+        System.out.println("✓ Execution trace written to " + FILE.toAbsolutePath()
+            + (DROPPED.get() > 0 ? " (" + DROPPED.get() + " events dropped)" : ""));
+    }
+
+    private static boolean isFineGrained(String category) {
+        return category.equals("driver") || category.equals("wait");
+    }
+
+    private static void enqueue(String event) {
+        // Never block a test thread on tracing; count what could not be queued instead
+        if (!QUEUE.offer(event)) {
+            DROPPED.incrementAndGet();
+        }
+    }
+
+    private static synchronized void ensureWriter() {
+        if (writer != null || closed) {
+            return;
+        }
+        writer = new Thread(TraceRecorder::drain, "trace-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private static void drain() {
+        try {
+            Files.createDirectories(FILE.getParent());
+            try (BufferedWriter out = Files.newBufferedWriter(FILE, StandardCharsets.UTF_8)) {
+                // The closing bracket is optional in the trace format, so a killed run still loads
+                out.write("[\n");
+                boolean first = true;
+                while (true) {
+                    String event = QUEUE.poll(500, TimeUnit.MILLISECONDS);
+                    if (event == null) {
+                        out.flush();
+                        continue;
+                    }
+                    if (event == STOP) {
+                        break;
+                    }
+                    if (!first) {
+                        out.write(",\n");
+                    }
+                    out.write(event);
+                    first = false;
+                }
+                out.write("\n]\n");
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write execution trace: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
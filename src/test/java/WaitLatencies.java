@@ -0,0 +1,157 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rolling per-condition latency samples behind {@link AdaptiveWait}.
+ *
+ * The last few observed latencies of each named condition are kept in a ring
+ * buffer and persisted between runs. Once a condition has enough samples its
+ * timeout becomes percentile * safety factor, clamped between a floor and the
+ * caller's ceiling; before that the ceiling is used unchanged. Only successful
+ * waits are sampled. Each consecutive timeout doubles the next timeout for that
+ * condition (up to the ceiling) until it succeeds again, so an environment that
+ * got slower recovers instead of failing at the old learned value.
+ *
+ *   -Dwaits.adaptive=false        always wait for the full ceiling
+ *   -Dwaits.percentile=0.95       latency percentile to start from
+ *   -Dwaits.safetyFactor=3.0      multiplier applied to the percentile
+ *   -Dwaits.floorMs=2000          shortest timeout ever used
+ *   -Dwaits.minSamples=5          samples needed before adapting
+ *   -Dwaits.file=.cache/wait-latencies.properties
+ */
+public final class WaitLatencies {
+    private static final boolean ADAPTIVE = Boolean.parseBoolean(System.getProperty("waits.adaptive", "true"));
+    private static final double PERCENTILE = Double.parseDouble(System.getProperty("waits.percentile", "0.95"));
+    private static final double SAFETY_FACTOR = Double.parseDouble(System.getProperty("waits.safetyFactor", "3.0"));
+    private static final long FLOOR_MS = Long.getLong("waits.floorMs", 2000L);
+    private static final int MIN_SAMPLES = Integer.getInteger("waits.minSamples", 5);
+    private static final int WINDOW = 50;
+    private static final Path FILE = Paths.get(System.getProperty("waits.file",
+        ".cache" + File.separator + "wait-latencies.properties"));
+
+    private static final Map<String, Samples> SAMPLES = new ConcurrentHashMap<>();
+
+    static {
+        load();
+        Runtime.getRuntime().addShutdownHook(new Thread(WaitLatencies::save, "wait-latencies-save"));
+    }
+
+    private WaitLatencies() {
+    }
+
+    /**
+     * Fixed-size ring buffer of latencies in milliseconds
+     */
+    private static final class Samples {
+        private final long[] values = new long[WINDOW];
+        private int count;
+        private int next;
+        private int consecutiveTimeouts;
+
+        synchronized void add(long millis) {
+            values[next] = millis;
+            next = (next + 1) % WINDOW;
+            count = Math.min(count + 1, WINDOW);
+            consecutiveTimeouts = 0;
+        }
+
+        synchronized void timedOut() {
+            consecutiveTimeouts = Math.min(consecutiveTimeouts + 1, 16);
+        }
+
+        synchronized int backoff() {
+            return 1 << consecutiveTimeouts;
+        }
+
+        synchronized long[] snapshot() {
+            return Arrays.copyOf(values, count);
+        }
+    }
+
+    /**
+     * Strips the "Current url/title/value: ..." suffix ExpectedConditions add,
+     * so the same condition always maps to the same key
+     */
+    public static String normalize(String condition) {
+        return condition.replaceAll("\\. Current [a-z ]+: .*$", "");
+    }
+
+    public static Duration timeoutFor(String condition, Duration ceiling) {
+        if (!ADAPTIVE) {
+            return ceiling;
+        }
+        Samples samples = SAMPLES.get(condition);
+        long[] values = samples == null ? new long[0] : samples.snapshot();
+        if (values.length < MIN_SAMPLES) {
+            return ceiling;
+        }
+        Arrays.sort(values);
+        long percentile = values[(int) Math.min(values.length - 1, Math.ceil(PERCENTILE * values.length) - 1)];
+        long timeout = Math.round(percentile * SAFETY_FACTOR) * samples.backoff();
+        return Duration.ofMillis(Math.max(FLOOR_MS, Math.min(ceiling.toMillis(), timeout)));
+    }
+
+    public static void record(String condition, Duration latency) {
+        SAMPLES.computeIfAbsent(condition, k -> new Samples()).add(latency.toMillis());
+    }
+
+    public static void recordTimeout(String condition) {
+        SAMPLES.computeIfAbsent(condition, k -> new Samples()).timedOut();
+    }
+
+    private static void load() {
+        if (!Files.exists(FILE)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader(FILE, StandardCharsets.UTF_8)) {
+            properties.load(in);
+        } catch (IOException e) {
+            System.err.println("Failed to load wait latencies: " + e.getMessage());
+            return;
+        }
+        for (String condition : properties.stringPropertyNames()) {
+            for (String value : properties.getProperty(condition).split(",")) {
+                if (!value.isBlank()) {
+                    record(condition, Duration.ofMillis(Long.parseLong(value.trim())));
+                }
+            }
+        }
+    }
+
+    private static void save() {
+        Map<String, String> sorted = new TreeMap<>();
+        SAMPLES.forEach((condition, samples) -> {
+            StringBuilder values = new StringBuilder();
+            for (long value : samples.snapshot()) {
+                if (values.length() > 0) {
+                    values.append(',');
+                }
+                values.append(value);
+            }
+            sorted.put(condition, values.toString());
+        });
+        Properties properties = new Properties();
+        properties.putAll(sorted);
+        try {
+            Files.createDirectories(FILE.toAbsolutePath().getParent());
+            try (Writer out = Files.newBufferedWriter(FILE, StandardCharsets.UTF_8)) {
+                properties.store(out, "Observed wait latencies in ms per condition, most recent " + WINDOW);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to save wait latencies: " + e.getMessage());
+        }
+    }
+}
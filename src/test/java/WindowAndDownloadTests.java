@@ -1,27 +1,26 @@
 import io.github.bonigarcia.wdm.WebDriverManager;
 import org.openqa.selenium.*;
-import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 import org.testng.Assert;
+import org.testng.ITestResult;
 import org.testng.annotations.*;
 
 import java.io.File;
+import java.lang.reflect.Method;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Set;
 
+@Isolated("enumerates window handles and logs in")
 public class WindowAndDownloadTests {
-    private WebDriver driver;
-    private WebDriverWait wait;
-    private static final String BASE_URL = "https://opensource-demo.orangehrmlive.com/";
-    private static final String VALID_USERNAME = "Admin";
-    private static final String VALID_PASSWORD = "admin123";
+    // Per thread, so test methods can run in parallel on one instance
+    private final ThreadLocal<WebDriver> drivers = new ThreadLocal<>();
+    private final ThreadLocal<AdaptiveWait> waits = new ThreadLocal<>();
     private static final String DOWNLOAD_DIR = System.getProperty("user.dir") + File.separator + "downloads";
 
     @BeforeMethod
-    public void setup() {
+    public void setup(Method method) {
         // Setup ChromeDriver using WebDriverManager
         WebDriverManager.chromedriver().setup();
         
@@ -39,8 +38,9 @@ public class WindowAndDownloadTests {
         options.setExperimentalOption("prefs", chromePrefs);
         
         // Initialize WebDriver
-        driver = new ChromeDriver(options);
-        wait = new WebDriverWait(driver, Duration.ofSeconds(10));
+        WebDriver driver = DriverFactory.newDriver(options, method);
+        drivers.set(driver);
+        waits.set(new AdaptiveWait(driver, Duration.ofSeconds(10)));
         
         // Create downloads directory if it doesn't exist
         File downloadDir = new File(DOWNLOAD_DIR);
@@ -50,40 +50,20 @@ public class WindowAndDownloadTests {
     }
 
     @AfterMethod
-    public void teardown() {
-        // Close all browser windows
-        if (driver != null) {
-            driver.quit();
-        }
-    }
-
-    /**
-     * Helper method to perform login
-     */
-    private void performLogin() {
-        driver.get(BASE_URL);
-        
-        WebElement usernameField = wait.until(
-            ExpectedConditions.presenceOfElementLocated(By.name("username"))
-        );
-        usernameField.sendKeys(VALID_USERNAME);
-        
-        WebElement passwordField = driver.findElement(By.name("password"));
-        passwordField.sendKeys(VALID_PASSWORD);
-        
-        WebElement loginButton = driver.findElement(By.cssSelector("button[type='submit']"));
-        loginButton.click();
-        
-        wait.until(ExpectedConditions.urlContains("dashboard"));
+    public void teardown(ITestResult result) {
+        // Close all browser windows, or park the browser for the next test that starts in the same state
+        DriverFactory.release(drivers.get(), result);
+        drivers.remove();
+        waits.remove();
     }
 
+    @RequiresState(SessionState.ADMIN_DASHBOARD)
     @Test(priority = 1, groups = {"Smoke", "Regression"}, description = "Verify handling of multiple browser windows/tabs")
     public void testMultipleWindowHandling() {
+        WebDriver driver = drivers.get();
+        AdaptiveWait wait = waits.get();
         try {
-            // Login to application
-            performLogin();
-            System.out.println("✓ Login successful");
-
+            // Starts logged in as Admin on the dashboard
             // Store the original window handle
             String originalWindow = driver.getWindowHandle();
             System.out.println("✓ Original window handle stored: " + originalWindow.substring(0, 8) + "...");
@@ -106,7 +86,7 @@ public class WindowAndDownloadTests {
                 Thread.sleep(2000);
 
                 // Wait for the new window to open
-                wait.until(driver -> driver.getWindowHandles().size() > 1);
+                wait.until("more than one window", d -> d.getWindowHandles().size() > 1);
 
                 // Get all window handles
                 Set<String> windowHandles = driver.getWindowHandles();
@@ -161,13 +141,13 @@ public class WindowAndDownloadTests {
         }
     }
 
+    @RequiresState(SessionState.ADMIN_DASHBOARD)
     @Test(priority = 2, groups = {"Regression"}, description = "Verify file download functionality")
     public void testFileDownload() {
+        WebDriver driver = drivers.get();
+        AdaptiveWait wait = waits.get();
         try {
-            // Login to application
-            performLogin();
-            System.out.println("✓ Login successful");
-
+            // Starts logged in as Admin on the dashboard
             // Navigate to a page that has downloadable content
             // In OrangeHRM, we can try to download something from PIM or Reports section
             try {
@@ -234,11 +214,13 @@ public class WindowAndDownloadTests {
         }
     }
 
+    @RequiresState(SessionState.LOGIN_PAGE)
     @Test(priority = 3, groups = {"Regression"}, description = "Verify switching between multiple tabs")
     public void testTabSwitching() {
+        WebDriver driver = drivers.get();
+        AdaptiveWait wait = waits.get();
         try {
-            // Open the main application
-            driver.get(BASE_URL);
+            // Starts on the main application's login page
             String mainTab = driver.getWindowHandle();
 
             // Open a new tab manually using JavaScript
@@ -246,7 +228,7 @@ public class WindowAndDownloadTests {
             js.executeScript("window.open('about:blank','_blank');");
             
             // Wait for new tab
-            wait.until(driver -> driver.getWindowHandles().size() == 2);
+            wait.until("two windows", d -> d.getWindowHandles().size() == 2);
             
             // Get all tabs
             Set<String> tabs = driver.getWindowHandles();